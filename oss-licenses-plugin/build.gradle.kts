@@ -3,6 +3,7 @@ plugins {
     id("java-gradle-plugin")
     id("org.jetbrains.kotlin.jvm") version "1.8.22"
     id("com.gradle.plugin-publish") version "1.1.0"
+    id("me.champeau.jmh") version "0.6.8"
 }
 
 group = "com.google.android.gms"
@@ -36,6 +37,18 @@ dependencies {
     testImplementation("com.google.code.gson:gson:2.8.9")
 }
 
+// Benchmarks of the license generation hot paths in src/jmh, run with
+// ./gradlew jmh. Results are written to build/results/jmh.
+jmh {
+    jmhVersion.set("1.36")
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    // ProjectBuilder needs reflective access to java.lang.
+    jvmArgs.add("--add-opens=java.base/java.lang=ALL-UNNAMED")
+    resultFormat.set("JSON")
+}
+
 publishing {
     publications {
         create<MavenPublication>("pluginMaven") {
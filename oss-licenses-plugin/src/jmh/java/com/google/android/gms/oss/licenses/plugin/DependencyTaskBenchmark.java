@@ -0,0 +1,97 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import com.android.tools.build.libraries.metadata.AppDependencies;
+import com.android.tools.build.libraries.metadata.Library;
+import com.android.tools.build.libraries.metadata.MavenLibrary;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks of the {@link DependencyTask} converting an AppDependencies
+ * protobuf file into an {@link ArtifactManifest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DependencyTaskBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int artifacts;
+
+  private File directory;
+  private File protoFile;
+  private File manifestFile;
+  private Set<ArtifactInfo> artifactInfos;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("oss-licenses-benchmark").toFile();
+    AppDependencies.Builder appDependencies = AppDependencies.newBuilder();
+    for (int i = 0; i < artifacts; i++) {
+      appDependencies.addLibrary(Library.newBuilder()
+          .setMavenLibrary(MavenLibrary.newBuilder()
+              .setGroupId("com.example.group" + (i % 50))
+              .setArtifactId("artifact" + i)
+              .setVersion("1." + i)));
+    }
+    protoFile = new File(directory, "dependencies.pb");
+    try (OutputStream output = new FileOutputStream(protoFile)) {
+      appDependencies.build().writeTo(output);
+    }
+    manifestFile = new File(directory, "dependencies.bin");
+    artifactInfos = DependencyTask.readMavenLibraries(protoFile);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    SyntheticCorpus.delete(directory);
+  }
+
+  @Benchmark
+  public Set<ArtifactInfo> readMavenLibraries() {
+    return DependencyTask.readMavenLibraries(protoFile);
+  }
+
+  @Benchmark
+  public void writeArtifactManifest() throws IOException {
+    List<ArtifactInfo> sortedArtifactInfos = DependencyTask.sortArtifactInfo(artifactInfos);
+    ArtifactManifest.write(sortedArtifactInfos, manifestFile);
+  }
+
+  @Benchmark
+  public void convert() throws IOException {
+    ArtifactManifest.write(
+        DependencyTask.sortArtifactInfo(DependencyTask.readMavenLibraries(protoFile)),
+        manifestFile);
+  }
+}
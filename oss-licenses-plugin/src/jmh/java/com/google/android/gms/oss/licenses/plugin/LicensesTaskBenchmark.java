@@ -0,0 +1,140 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.Dependency;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of reading and appending the licenses of a {@link SyntheticCorpus}
+ * in the {@link LicensesTask}. Each invocation processes every artifact of the
+ * corpus with a task whose output was reset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LicensesTaskBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int artifacts;
+
+  private File directory;
+  private SyntheticCorpus corpus;
+  private LicensesTask licensesTask;
+  private final List<Dependency> dependencies = new ArrayList<>();
+  /** The license texts of the corpus, one after the other. */
+  private byte[] licensesText;
+  private int[] licenseOffsets;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("oss-licenses-benchmark").toFile();
+    corpus = SyntheticCorpus.create(new File(directory, "repository"), artifacts);
+    for (ArtifactInfo artifact : corpus.artifacts) {
+      dependencies.add(
+          new Dependency(artifact.getGroup() + ":" + artifact.getName(), artifact.getName()));
+    }
+    ByteArrayOutputStream text = new ByteArrayOutputStream();
+    licenseOffsets = new int[corpus.licenses.size()];
+    for (int i = 0; i < corpus.licenses.size(); i++) {
+      licenseOffsets[i] = text.size();
+      text.write(corpus.licenses.get(i));
+    }
+    licensesText = text.toByteArray();
+
+    Project project =
+        ProjectBuilder.builder().withProjectDir(new File(directory, "project")).build();
+    File outputDir = new File(directory, "output");
+    licensesTask = project.getTasks().create("generateLicenses", LicensesTask.class);
+    licensesTask.setRawResourceDir(outputDir);
+    licensesTask.setLicenses(new File(outputDir, "third_party_licenses"));
+    licensesTask.setLicensesMetadata(new File(outputDir, "third_party_license_metadata"));
+    licensesTask.initOutputDir();
+  }
+
+  @Setup(Level.Invocation)
+  public void resetOutput() {
+    licensesTask.start = 0;
+    licensesTask.googleServiceLicenses.clear();
+    licensesTask.licensesMap.clear();
+    licensesTask.licenseOffsets.clear();
+    licensesTask.initLicenseFile();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    SyntheticCorpus.delete(directory);
+  }
+
+  @Benchmark
+  public void appendDependency() {
+    licensesTask.writeLicenses(() -> {
+      for (int i = 0; i < dependencies.size(); i++) {
+        licensesTask.appendDependency(dependencies.get(i), corpus.license(i));
+      }
+    });
+  }
+
+  @Benchmark
+  public void getBytesFromInputStream(Blackhole blackhole) {
+    for (int i = 0; i < artifacts; i++) {
+      int license = i % licenseOffsets.length;
+      blackhole.consume(LicensesTask.getBytesFromInputStream(
+          new ByteArrayInputStream(licensesText),
+          licenseOffsets[license],
+          corpus.licenses.get(license).length));
+    }
+  }
+
+  @Benchmark
+  public void addLicensesFromPom() {
+    licensesTask.writeLicenses(() -> {
+      for (int i = 0; i < artifacts; i++) {
+        ArtifactInfo artifact = corpus.artifacts.get(i);
+        licensesTask.addLicensesFromPom(
+            corpus.pomFiles.get(i), artifact.getGroup(), artifact.getName());
+      }
+    });
+  }
+
+  @Benchmark
+  public void addGooglePlayServiceLicenses() {
+    licensesTask.writeLicenses(() -> {
+      for (File aarFile : corpus.aarFiles) {
+        licensesTask.addGooglePlayServiceLicenses(aarFile);
+      }
+    });
+  }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generated POM files and AARs of a number of artifacts, shaped like those of
+ * an app's runtime dependencies: most licenses are shared by many artifacts
+ * and some POM files list several licenses.
+ */
+final class SyntheticCorpus {
+
+  /** Number of distinct license texts the artifacts pick from. */
+  static final int LICENSE_COUNT = 64;
+  /** Number of licenses embedded in each AAR. */
+  static final int AAR_LICENSE_COUNT = 8;
+
+  final List<ArtifactInfo> artifacts = new ArrayList<>();
+  final List<File> pomFiles = new ArrayList<>();
+  final List<File> aarFiles = new ArrayList<>();
+  final List<byte[]> licenses = new ArrayList<>();
+
+  private SyntheticCorpus() {}
+
+  /** Writes the POM file and AAR of size artifacts into directory. */
+  static SyntheticCorpus create(File directory, int size) throws IOException {
+    SyntheticCorpus corpus = new SyntheticCorpus();
+    for (int i = 0; i < LICENSE_COUNT; i++) {
+      corpus.licenses.add(licenseText(i));
+    }
+    for (int i = 0; i < size; i++) {
+      ArtifactInfo artifact =
+          new ArtifactInfo("com.example.group" + (i % 50), "artifact" + i, "1." + i);
+      File artifactDir = new File(directory, artifact.getGroup() + "/" + artifact.getName());
+      artifactDir.mkdirs();
+      corpus.artifacts.add(artifact);
+      corpus.pomFiles.add(writePom(new File(artifactDir, "artifact.pom"), artifact, i));
+      corpus.aarFiles.add(corpus.writeAar(new File(artifactDir, "artifact.aar"), i));
+    }
+    return corpus;
+  }
+
+  /** Deletes file and, if it is a directory, everything in it. */
+  static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  /** Returns the license that artifact index picks. */
+  byte[] license(int index) {
+    return licenses.get(index % LICENSE_COUNT);
+  }
+
+  private static byte[] licenseText(int index) {
+    StringBuilder text = new StringBuilder("License " + index + "\n\n");
+    for (int line = 0; line < 40; line++) {
+      text.append("Permission is hereby granted, free of charge, to any person obtaining a copy ")
+          .append(index)
+          .append('\n');
+    }
+    return text.toString().getBytes(UTF_8);
+  }
+
+  private static File writePom(File pomFile, ArtifactInfo artifact, int index)
+      throws IOException {
+    StringBuilder pom = new StringBuilder()
+        .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+        .append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n")
+        .append("  <modelVersion>4.0.0</modelVersion>\n")
+        .append("  <groupId>").append(artifact.getGroup()).append("</groupId>\n")
+        .append("  <artifactId>").append(artifact.getName()).append("</artifactId>\n")
+        .append("  <version>").append(artifact.getVersion()).append("</version>\n")
+        .append("  <name>Artifact ").append(index).append("</name>\n")
+        .append("  <description>A generated artifact.</description>\n")
+        .append("  <licenses>\n");
+    // Every tenth artifact is dual-licensed.
+    int licenseCount = index % 10 == 0 ? 2 : 1;
+    for (int i = 0; i < licenseCount; i++) {
+      int license = (index + i) % LICENSE_COUNT;
+      pom.append("    <license>\n")
+          .append("      <name>License ").append(license).append("</name>\n")
+          .append("      <url>https://example.com/licenses/").append(license).append("</url>\n")
+          .append("    </license>\n");
+    }
+    pom.append("  </licenses>\n")
+        .append("  <dependencies>\n")
+        .append("    <dependency>\n")
+        .append("      <groupId>com.example</groupId>\n")
+        .append("      <artifactId>dependency").append(index).append("</artifactId>\n")
+        .append("      <version>1.0</version>\n")
+        .append("    </dependency>\n")
+        .append("  </dependencies>\n")
+        .append("</project>\n");
+    Files.write(pomFile.toPath(), pom.toString().getBytes(UTF_8));
+    return pomFile;
+  }
+
+  /**
+   * Writes an AAR embedding {@link #AAR_LICENSE_COUNT} licenses in
+   * third_party_licenses.txt, indexed by third_party_licenses.json.
+   */
+  private File writeAar(File aarFile, int index) throws IOException {
+    ByteArrayOutputStream text = new ByteArrayOutputStream();
+    StringBuilder json = new StringBuilder("{");
+    for (int i = 0; i < AAR_LICENSE_COUNT; i++) {
+      int license = (index * 3 + i) % LICENSE_COUNT;
+      byte[] licenseText = licenses.get(license);
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("\"library").append(license).append("\":{\"start\":").append(text.size())
+          .append(",\"length\":").append(licenseText.length).append('}');
+      text.write(licenseText);
+      text.write('\n');
+    }
+    json.append('}');
+
+    try (ZipOutputStream output = new ZipOutputStream(new FileOutputStream(aarFile))) {
+      output.putNextEntry(new ZipEntry("classes.jar"));
+      output.write(new byte[4096]);
+      output.closeEntry();
+      output.putNextEntry(new ZipEntry("third_party_licenses.json"));
+      Writer writer = new OutputStreamWriter(output, UTF_8);
+      writer.write(json.toString());
+      writer.flush();
+      output.closeEntry();
+      output.putNextEntry(new ZipEntry("third_party_licenses.txt"));
+      text.writeTo(output);
+      output.closeEntry();
+    }
+    return aarFile;
+  }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin
+
+import groovy.transform.CompileStatic
+
+/**
+ * Binary list of artifacts passed from the {@link DependencyTask} to the
+ * {@link LicensesTask}.
+ *
+ * The file starts with {@link #MAGIC}, {@link #FORMAT_VERSION} and the number
+ * of artifacts, followed by the group, name and version of each artifact as
+ * length-prefixed UTF-8 strings (see {@link DataOutput#writeUTF(String)}).
+ */
+@CompileStatic
+class ArtifactManifest {
+    protected static final int MAGIC = 0x4F53534C // "OSSL"
+    protected static final int FORMAT_VERSION = 1
+
+    /**
+     * Writes artifactInfos to manifestFile in the order they are iterated.
+     */
+    static void write(Collection<ArtifactInfo> artifactInfos, File manifestFile) throws IOException {
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(manifestFile))).withCloseable { output ->
+            output.writeInt(MAGIC)
+            output.writeByte(FORMAT_VERSION)
+            output.writeInt(artifactInfos.size())
+            for (ArtifactInfo artifactInfo : artifactInfos) {
+                output.writeUTF(artifactInfo.group)
+                output.writeUTF(artifactInfo.name)
+                output.writeUTF(artifactInfo.version)
+            }
+        }
+    }
+
+    static Set<ArtifactInfo> read(File manifestFile) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(manifestFile))).withCloseable { input ->
+            int magic = input.readInt()
+            int formatVersion = input.readUnsignedByte()
+            if (magic != MAGIC || formatVersion != FORMAT_VERSION) {
+                throw new IOException(
+                        "$manifestFile is not an artifact manifest of version $FORMAT_VERSION.")
+            }
+            int size = input.readInt()
+            Set<ArtifactInfo> artifactInfoSet = new LinkedHashSet<>(size * 2)
+            for (int i = 0; i < size; i++) {
+                artifactInfoSet.add(new ArtifactInfo(input.readUTF(), input.readUTF(), input.readUTF()))
+            }
+            return artifactInfoSet
+        }
+    }
+}
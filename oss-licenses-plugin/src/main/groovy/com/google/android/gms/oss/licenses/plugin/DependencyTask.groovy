@@ -17,78 +17,162 @@
 package com.google.android.gms.oss.licenses.plugin
 
 import com.android.tools.build.libraries.metadata.AppDependencies
-import groovy.json.JsonBuilder
+import com.android.tools.build.libraries.metadata.Library
+import com.google.protobuf.CodedInputStream
+import com.google.protobuf.ExtensionRegistryLite
+import com.google.protobuf.WireFormat
+import groovy.json.JsonOutput
 import org.gradle.api.DefaultTask
 import org.gradle.api.file.RegularFileProperty
 import org.gradle.api.tasks.InputFile
+import org.gradle.api.tasks.Internal
 import org.gradle.api.tasks.OutputFile
 import org.gradle.api.tasks.TaskAction
 import org.slf4j.LoggerFactory
 
-import java.util.stream.Collectors
-
 import static com.android.tools.build.libraries.metadata.Library.LibraryOneofCase.MAVEN_LIBRARY
 
 /**
  * Converts the AppDependencies protobuf file provided by the Android Gradle
- * Plugin into a JSON format that will be consumed by the {@link LicensesTask}.
+ * Plugin into an {@link ArtifactManifest} that will be consumed by the
+ * {@link LicensesTask}, and optionally into JSON for debugging.
  *
  * If the protobuf is not present (e.g. debug variants) it writes a single
  * dependency on the {@link DependencyUtil#ABSENT_ARTIFACT}.
  */
 abstract class DependencyTask extends DefaultTask {
     private static final logger = LoggerFactory.getLogger(DependencyTask.class)
+    protected static final String PHASE_READ_DEPENDENCIES = "readDependencies"
+    protected static final String PHASE_SORT_DEPENDENCIES = "sortDependencies"
+    protected static final String PHASE_WRITE_MANIFEST = "writeManifest"
+    protected static final String PHASE_WRITE_DEPENDENCIES_JSON = "writeDependenciesJson"
+    protected static final String ARTIFACTS = "artifacts"
+    protected static final String DEPENDENCIES_REPORT_BYTES = "dependenciesReportBytes"
+
+    protected final TaskMetrics metrics = new TaskMetrics()
+
+    @OutputFile
+    @org.gradle.api.tasks.Optional
+    abstract RegularFileProperty getArtifactManifest()
 
     @OutputFile
+    @org.gradle.api.tasks.Optional
     abstract RegularFileProperty getDependenciesJson()
 
     @InputFile
     @org.gradle.api.tasks.Optional
     abstract RegularFileProperty getLibraryDependenciesReport()
 
+    /**
+     * File the {@link TaskMetrics} of the task are written to as JSON. It is
+     * not an output of the task, so it is only written when the task runs.
+     */
+    @Internal
+    abstract RegularFileProperty getMetricsReport()
+
     @TaskAction
     void action() {
-        def artifactInfoSet = loadArtifactInfo()
+        Set<ArtifactInfo> artifactInfoSet = metrics.time(PHASE_READ_DEPENDENCIES) {
+            loadArtifactInfo()
+        }
+        metrics.increment(ARTIFACTS, artifactInfoSet.size())
+        List<ArtifactInfo> artifactInfos = metrics.time(PHASE_SORT_DEPENDENCIES) {
+            sortArtifactInfo(artifactInfoSet)
+        }
 
-        File outputFile = dependenciesJson.asFile.get()
+        if (artifactManifest.isPresent()) {
+            File manifestFile = artifactManifest.asFile.get()
+            initOutput(manifestFile.parentFile)
+            metrics.time(PHASE_WRITE_MANIFEST) {
+                ArtifactManifest.write(artifactInfos, manifestFile)
+            }
+        }
+        if (dependenciesJson.isPresent()) {
+            File outputFile = dependenciesJson.asFile.get()
+            initOutput(outputFile.parentFile)
+            metrics.time(PHASE_WRITE_DEPENDENCIES_JSON) {
+                writeDependenciesJson(artifactInfos, outputFile)
+            }
+        }
 
-        initOutput(outputFile.parentFile)
-        outputFile.newWriter().withWriter {
-            it.write(new JsonBuilder(artifactInfoSet).toPrettyString())
+        metrics.log(getLogger(), path)
+        if (metricsReport.isPresent()) {
+            metrics.write(path, metricsReport.get().asFile)
         }
     }
 
-    private Set<ArtifactInfo> loadArtifactInfo() {
+    protected Set<ArtifactInfo> loadArtifactInfo() {
         if (!libraryDependenciesReport.isPresent()) {
             logger.info("$name not provided with AppDependencies proto file.")
             return [DependencyUtil.ABSENT_ARTIFACT]
         }
 
-        AppDependencies appDependencies = loadDependenciesFile()
+        File dependenciesFile = libraryDependenciesReport.asFile.get()
+        metrics.increment(DEPENDENCIES_REPORT_BYTES, dependenciesFile.length())
+        return readMavenLibraries(dependenciesFile)
+    }
 
-        return convertDependenciesToArtifactInfo(appDependencies)
+    /**
+     * Reads the Maven libraries of an AppDependencies protobuf file one
+     * library at a time. The dependency graph and the other fields of the
+     * report are skipped without being parsed.
+     */
+    protected static Set<ArtifactInfo> readMavenLibraries(File dependenciesFile) {
+        Set<ArtifactInfo> artifactInfoSet = new HashSet<>()
+        dependenciesFile.withInputStream { stream ->
+            CodedInputStream input = CodedInputStream.newInstance(stream)
+            int tag
+            while ((tag = input.readTag()) != 0) {
+                if (WireFormat.getTagFieldNumber(tag) == AppDependencies.LIBRARY_FIELD_NUMBER
+                        && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                    Library library = input.readMessage(
+                            Library.parser(),
+                            ExtensionRegistryLite.getEmptyRegistry())
+                    if (library.libraryOneofCase == MAVEN_LIBRARY) {
+                        artifactInfoSet.add(new ArtifactInfo(
+                                library.mavenLibrary.groupId,
+                                library.mavenLibrary.artifactId,
+                                library.mavenLibrary.version))
+                    }
+                } else if (!input.skipField(tag)) {
+                    break
+                }
+            }
+        }
+        return artifactInfoSet
     }
 
-    private AppDependencies loadDependenciesFile() {
-        File dependenciesFile = libraryDependenciesReport.asFile.get()
-        return dependenciesFile.withInputStream {
-            AppDependencies.parseFrom(it)
-        } as AppDependencies
+    /**
+     * Returns artifactInfos sorted by group, name and version, so that the
+     * outputs only change when the dependencies do.
+     */
+    protected static List<ArtifactInfo> sortArtifactInfo(Collection<ArtifactInfo> artifactInfos) {
+        return artifactInfos.sort(false) { a, b ->
+            a.group <=> b.group ?: a.name <=> b.name ?: a.version <=> b.version
+        }
     }
 
-    private static Set<ArtifactInfo> convertDependenciesToArtifactInfo(
-            AppDependencies appDependencies
-    ) {
-        return appDependencies.libraryList.stream()
-                .filter { it.libraryOneofCase == MAVEN_LIBRARY }
-                .map { library ->
-                    return new ArtifactInfo(
-                            library.mavenLibrary.groupId,
-                            library.mavenLibrary.artifactId,
-                            library.mavenLibrary.version
-                    )
+    /**
+     * Writes artifactInfos to outputFile as a compact JSON array, one entry
+     * at a time.
+     */
+    protected static void writeDependenciesJson(
+            List<ArtifactInfo> artifactInfos,
+            File outputFile) {
+        outputFile.withWriter("UTF-8") { writer ->
+            writer.write("[")
+            artifactInfos.eachWithIndex { artifactInfo, index ->
+                if (index > 0) {
+                    writer.write(",")
                 }
-                .collect(Collectors.toUnmodifiableSet())
+                writer.write(JsonOutput.toJson([
+                        group  : artifactInfo.group,
+                        name   : artifactInfo.name,
+                        version: artifactInfo.version
+                ]))
+            }
+            writer.write("]")
+        }
     }
 
     private static void initOutput(File outputDir) {
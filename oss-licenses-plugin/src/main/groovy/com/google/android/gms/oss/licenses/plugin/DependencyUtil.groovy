@@ -16,16 +16,18 @@
 
 package com.google.android.gms.oss.licenses.plugin
 
+import com.google.android.gms.oss.licenses.plugin.PomLicenseReader.PomLicenses
 import org.gradle.api.Project
 import org.gradle.api.artifacts.Configuration
-import org.gradle.api.artifacts.ResolvedArtifact
-import org.gradle.api.artifacts.ResolvedDependency
+import org.gradle.api.artifacts.component.ComponentIdentifier
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier
+import org.gradle.api.artifacts.result.ComponentArtifactsResult
 import org.gradle.api.artifacts.result.ResolvedArtifactResult
 import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
-import org.gradle.internal.component.AmbiguousVariantSelectionException
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.maven.MavenModule
+import org.gradle.api.specs.Spec
+import org.gradle.api.specs.Specs
 import org.gradle.maven.MavenPomArtifact
 import org.slf4j.LoggerFactory
 
@@ -39,16 +41,6 @@ class DependencyUtil {
     protected static final ArtifactInfo ABSENT_ARTIFACT =
             new ArtifactInfo("absent", "absent", "absent")
 
-    protected static final String LOCAL_LIBRARY_VERSION = "unspecified"
-    private static final String TEST_PREFIX = "test"
-    private static final String ANDROID_TEST_PREFIX = "androidTest"
-    private static final Set<String> TEST_COMPILE = ["testCompile",
-                                                     "androidTestCompile"]
-
-    private static final Set<String> PACKAGED_DEPENDENCIES_PREFIXES = ["compile",
-                                                                       "implementation",
-                                                                       "api"]
-
     private static final logger = LoggerFactory.getLogger(DependencyTask.class)
 
 
@@ -57,168 +49,178 @@ class DependencyUtil {
      * if none was found.
      */
     static File resolvePomFileArtifact(Project project, ArtifactInfo artifactInfo) {
-        def moduleComponentIdentifier =
-                createModuleComponentIdentifier(artifactInfo)
-        logger.info("Resolving POM file for $moduleComponentIdentifier licenses.")
+        return resolvePomFileArtifacts(project, [artifactInfo])[artifactInfo]
+    }
+
+    /**
+     * Returns the POM files associated with the supplied artifacts, resolved
+     * with a single artifact resolution query. Artifacts without a POM file
+     * are absent from the returned map.
+     */
+    static Map<ArtifactInfo, File> resolvePomFileArtifacts(
+            Project project,
+            Collection<ArtifactInfo> artifactInfos) {
+        Map<ArtifactInfo, File> pomFiles = [:]
+        if (artifactInfos.isEmpty()) {
+            return pomFiles
+        }
+
+        def moduleComponentIdentifiers = artifactInfos.collect {
+            createModuleComponentIdentifier(it)
+        }
+        logger.info("Resolving ${moduleComponentIdentifiers.size()} POM files for licenses.")
         def components = project.getDependencies()
                 .createArtifactResolutionQuery()
-                .forComponents(moduleComponentIdentifier)
+                .forComponents(moduleComponentIdentifiers)
                 .withArtifacts(MavenModule.class, MavenPomArtifact.class)
                 .execute()
-        if (components.resolvedComponents.isEmpty()) {
-            logger.warn("$moduleComponentIdentifier has no POM file.")
-            return null
-        }
 
-        def artifacts = components.resolvedComponents[0].getArtifacts(MavenPomArtifact.class)
-        if (artifacts.isEmpty()) {
-            logger.error("$moduleComponentIdentifier empty POM artifact list.")
-            return null
-        }
-        if (!(artifacts[0] instanceof ResolvedArtifactResult)) {
-            logger.error("$moduleComponentIdentifier unexpected type ${artifacts[0].class}")
-            return null
+        Set<ArtifactInfo> resolvedArtifacts = []
+        for (component in components.resolvedComponents) {
+            if (!(component.id instanceof ModuleComponentIdentifier)) {
+                continue
+            }
+            ArtifactInfo artifactInfo = artifactInfoFromIdentifier((ModuleComponentIdentifier) component.id)
+            resolvedArtifacts.add(artifactInfo)
+            File pomFile = getPomFile(component)
+            if (pomFile != null) {
+                pomFiles[artifactInfo] = pomFile
+            }
         }
-        return ((ResolvedArtifactResult) artifacts[0]).getFile()
-    }
 
-    private static ModuleComponentIdentifier createModuleComponentIdentifier(ArtifactInfo artifactInfo) {
-        return new DefaultModuleComponentIdentifier(DefaultModuleIdentifier.newId(artifactInfo.group, artifactInfo.name), artifactInfo.version)
+        for (moduleComponentIdentifier in moduleComponentIdentifiers) {
+            if (!resolvedArtifacts.contains(artifactInfoFromIdentifier(moduleComponentIdentifier))) {
+                logger.warn("$moduleComponentIdentifier has no POM file.")
+            }
+        }
+        return pomFiles
     }
 
     /**
-     * Returns the library file of a resolved dependency matching artifactInfo
-     * or null. Eagerly returns the first matching instance in the first
-     * matching configuration. Skips unresolvable, unresolved, test, and
-     * non-package dependency configurations.
-     *
-     * Will not cause an unresolved configuration to be resolved.
+     * Returns the POM files of the external modules resolved by configuration
+     * keyed by group:name:version, along with the parent POM files that POM
+     * files without licenses inherit them from. Parent POM files already in
+     * resolvedParents are not resolved again, and POM files already in poms
+     * are not read again. Only the POM files of modules that match filter
+     * are resolved.
      */
-    static File getLibraryFile(Project project, ArtifactInfo artifactInfo) {
-        def configurationContainer = project.getConfigurations()
-        for (Configuration configuration in configurationContainer) {
-            if (shouldSkipConfiguration(configuration)) {
-                continue
-            }
-
-            if (isNotResolved(configuration)) {
-                logger.info("Configuration ${configuration.name} is not resolved, skipping.")
-                continue
+    static Map<String, File> getPomFileIndex(
+            Project project,
+            Configuration configuration,
+            Map<ArtifactInfo, Optional<File>> resolvedParents = new HashMap<>(),
+            Map<File, PomLicenses> poms = new HashMap<>(),
+            Spec<ArtifactInfo> filter = Specs.satisfyAll()) {
+        Set<ArtifactInfo> artifactInfos = []
+        for (component in configuration.incoming.resolutionResult.allComponents) {
+            if (component.id instanceof ModuleComponentIdentifier) {
+                ArtifactInfo artifactInfo =
+                        artifactInfoFromIdentifier((ModuleComponentIdentifier) component.id)
+                if (filter.isSatisfiedBy(artifactInfo)) {
+                    artifactInfos.add(artifactInfo)
+                }
             }
-
-            def resolvedDependencies = configuration.getResolvedConfiguration().getLenientConfiguration().allModuleDependencies
-            return findLibraryFileInResolvedDependencies(resolvedDependencies, artifactInfo, Set.of())
         }
-        logger.warn("No resolved configurations contained $artifactInfo")
-        return null
+        Map<ArtifactInfo, File> pomFiles = resolvePomFileArtifacts(project, artifactInfos)
+        addParentPomFiles(project, pomFiles, resolvedParents, poms)
+        return pomFiles.collectEntries { artifactInfo, pomFile ->
+            [(artifactInfo.toString()): pomFile]
+        } as Map<String, File>
     }
 
-    private static File findLibraryFileInResolvedDependencies(
-            Set<ResolvedDependency> resolvedDependencies,
-            ArtifactInfo artifactInfo,
-            Set<ResolvedDependency> visitedDependencies) {
-
-        for (ResolvedDependency resolvedDependency in resolvedDependencies) {
-            try {
-                if (resolvedDependency.getModuleVersion() == LOCAL_LIBRARY_VERSION) {
-                    /**
-                     * Attempting to getAllModuleArtifacts on a local library project will result
-                     * in AmbiguousVariantSelectionException as there are not enough criteria
-                     * to match a specific variant of the library project. Instead we skip the
-                     * the library project itself and enumerate its dependencies.
-                     */
-                    if (resolvedDependency in visitedDependencies) {
-                        logger.info("Dependency cycle at ${resolvedDependency.name}")
+    /**
+     * Adds the parent POM files of the POM files in pomFiles that have no
+     * licenses to pomFiles, and their parents in turn. The parents of each
+     * level are resolved with a single query, and are kept in
+     * resolvedParents, which is empty for parents without a POM file. Each
+     * POM file is read once and kept in poms, which can be shared with
+     * {@link ParentPomLicenses}.
+     */
+    protected static void addParentPomFiles(
+            Project project,
+            Map<ArtifactInfo, File> pomFiles,
+            Map<ArtifactInfo, Optional<File>> resolvedParents,
+            Map<File, PomLicenses> poms) {
+        Collection<File> childPomFiles = new ArrayList<>(pomFiles.values())
+        for (int depth = 0; depth < ParentPomLicenses.MAX_DEPTH && !childPomFiles.isEmpty(); depth++) {
+            Set<ArtifactInfo> parents = []
+            for (pomFile in childPomFiles) {
+                PomLicenses pom = poms.get(pomFile)
+                if (pom == null) {
+                    try {
+                        pom = PomLicenseReader.readPom(pomFile, "")
+                    } catch (IOException e) {
+                        // The LicensesTask reports the POM file when reading its
+                        // licenses, and does not keep the licenses of its children.
+                        logger.info("Failed to read the parent of $pomFile", e)
                         continue
                     }
-                    File childResult = findLibraryFileInResolvedDependencies(
-                            resolvedDependency.getChildren(),
-                            artifactInfo,
-                            visitedDependencies + resolvedDependency
-                    )
-                    if (childResult != null) {
-                        return childResult
-                    }
-                } else {
-                    for (resolvedArtifact in resolvedDependency.getAllModuleArtifacts()) {
-                        if (isMatchingArtifact(resolvedArtifact, artifactInfo)) {
-                            return resolvedArtifact.file
-                        }
-                    }
+                    poms.putIfAbsent(pomFile, pom)
+                }
+                ArtifactInfo parent = pom.parent
+                if (parent != null && !pomFiles.containsKey(parent)) {
+                    parents.add(parent)
                 }
-            } catch (AmbiguousVariantSelectionException exception) {
-                logger.info("Failed to process ${resolvedDependency.name}", exception)
             }
-        }
-        return null
-    }
 
-    /**
-     * Returns true for configurations that cannot be resolved in the newer
-     * version of gradle API, are tests, or are not packaged dependencies.
-     */
-    private static boolean shouldSkipConfiguration(Configuration configuration) {
-        (!canBeResolved(configuration)
-                || isTest(configuration)
-                || !isPackagedDependency(configuration))
-    }
+            Set<ArtifactInfo> unresolvedParents = parents.findAll { !resolvedParents.containsKey(it) }
+            Map<ArtifactInfo, File> parentPomFiles = resolvePomFileArtifacts(project, unresolvedParents)
+            for (parent in unresolvedParents) {
+                resolvedParents.put(parent, Optional.ofNullable(parentPomFiles[parent]))
+            }
 
-    /**
-     * Checks if the configuration can be resolved. isCanBeResolved is added to
-     * gradle Api since 3.3. For the previous version, all the configurations
-     * can be resolved.
-     * @param configuration
-     * @return true if configuration can be resolved or the api is lower than
-     * 3.3, otherwise false.
-     */
-    protected static boolean canBeResolved(Configuration configuration) {
-        return configuration.metaClass.respondsTo(configuration,
-                "isCanBeResolved") ? configuration.isCanBeResolved() : true
+            childPomFiles = []
+            for (parent in parents) {
+                File parentPomFile = resolvedParents[parent].orElse(null)
+                if (parentPomFile != null) {
+                    pomFiles[parent] = parentPomFile
+                    childPomFiles.add(parentPomFile)
+                }
+            }
+        }
     }
 
     /**
-     * Checks if the configuration is from test.
-     * @param configuration
-     * @return true if configuration is a test configuration or its parent
-     * configurations are either testCompile or androidTestCompile, otherwise
-     * false.
+     * Returns the library files of the external modules resolved by
+     * configuration that match filter, keyed by group:name:version. The first
+     * file of a module wins, and artifacts that fail to resolve are skipped.
      */
-    protected static boolean isTest(Configuration configuration) {
-        boolean isTestConfiguration = (
-                configuration.name.startsWith(TEST_PREFIX) ||
-                        configuration.name.startsWith(ANDROID_TEST_PREFIX))
-        configuration.hierarchy.each {
-            isTestConfiguration |= TEST_COMPILE.contains(it.name)
+    static Map<String, File> getLibraryFileIndex(
+            Configuration configuration,
+            Spec<ModuleComponentIdentifier> filter) {
+        def artifacts = configuration.incoming.artifactView {
+            it.lenient(true)
+            it.componentFilter { ComponentIdentifier id ->
+                id instanceof ModuleComponentIdentifier && filter.isSatisfiedBy(id)
+            }
+        }.artifacts
+
+        Map<String, File> libraryFiles = [:]
+        for (artifact in artifacts) {
+            ArtifactInfo artifactInfo = artifactInfoFromIdentifier(
+                    (ModuleComponentIdentifier) artifact.id.componentIdentifier)
+            libraryFiles.putIfAbsent(artifactInfo.toString(), artifact.file)
         }
-        return isTestConfiguration
+        return libraryFiles
     }
 
-    /**
-     * Checks if the configuration is for a packaged dependency (rather than e.g. a build or test time dependency)
-     * @param configuration
-     * @return true if the configuration is in the set of @link #BINARY_DEPENDENCIES
-     */
-    protected static boolean isPackagedDependency(Configuration configuration) {
-        boolean isPackagedDependency = PACKAGED_DEPENDENCIES_PREFIXES.any {
-            configuration.name.startsWith(it)
+    private static File getPomFile(ComponentArtifactsResult component) {
+        def artifacts = component.getArtifacts(MavenPomArtifact.class)
+        if (artifacts.isEmpty()) {
+            logger.error("${component.id} empty POM artifact list.")
+            return null
         }
-        configuration.hierarchy.each {
-            String configurationHierarchyName = it.name
-            isPackagedDependency |= PACKAGED_DEPENDENCIES_PREFIXES.any {
-                configurationHierarchyName.startsWith(it)
-            }
+        if (!(artifacts[0] instanceof ResolvedArtifactResult)) {
+            logger.error("${component.id} unexpected type ${artifacts[0].class}")
+            return null
         }
-
-        return isPackagedDependency
+        return ((ResolvedArtifactResult) artifacts[0]).getFile()
     }
 
-    private static boolean isNotResolved(Configuration configuration) {
-        return configuration.state != Configuration.State.RESOLVED
+    private static ArtifactInfo artifactInfoFromIdentifier(ModuleComponentIdentifier id) {
+        return new ArtifactInfo(id.group, id.module, id.version)
     }
 
-    private static boolean isMatchingArtifact(ResolvedArtifact resolvedArtifact, ArtifactInfo artifactInfo) {
-        return (resolvedArtifact.moduleVersion.id.group == artifactInfo.group
-                && resolvedArtifact.name == artifactInfo.name
-                && resolvedArtifact.moduleVersion.id.version == artifactInfo.version)
+    private static ModuleComponentIdentifier createModuleComponentIdentifier(ArtifactInfo artifactInfo) {
+        return new DefaultModuleComponentIdentifier(DefaultModuleIdentifier.newId(artifactInfo.group, artifactInfo.name), artifactInfo.version)
     }
 }
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin
+
+import java.util.zip.Deflater
+
+/**
+ * Writes the licenses and metadata generated by the {@link LicensesTask} as
+ * a single indexed bundle. See {@link LicenseBundleReader} for the format.
+ */
+class LicenseBundleWriter {
+    private static final String UTF_8 = "UTF-8"
+
+    /**
+     * Writes the license texts in licenses that the metadata entries
+     * ("start:length name") point to into bundleFile. With deflate set, each
+     * license text is compressed on its own.
+     */
+    static void write(
+            byte[] licenses,
+            Collection<String> metadata,
+            File bundleFile,
+            boolean deflate) {
+        List<Entry> entries = metadata.collect { Entry.fromMetadata(it) }
+                .sort(false) { a, b -> a.name <=> b.name }
+
+        ByteArrayOutputStream names = new ByteArrayOutputStream()
+        ByteArrayOutputStream bodies = new ByteArrayOutputStream()
+        Map<String, int[]> bodyOffsets = [:]
+        ByteArrayOutputStream index = new ByteArrayOutputStream()
+        DataOutputStream indexOutput = new DataOutputStream(index)
+        for (entry in entries) {
+            byte[] name = entry.name.getBytes(UTF_8)
+            indexOutput.writeInt(names.size())
+            indexOutput.writeInt(name.length)
+            names.write(name)
+
+            // Entries with the same text share a body.
+            int[] body = bodyOffsets["${entry.start}:${entry.length}"]
+            if (body == null) {
+                byte[] text = Arrays.copyOfRange(licenses, entry.start, entry.start + entry.length)
+                byte[] storedText = deflate ? compress(text) : text
+                body = [bodies.size(), storedText.length] as int[]
+                bodies.write(storedText)
+                bodyOffsets["${entry.start}:${entry.length}"] = body
+            }
+            indexOutput.writeInt(body[0])
+            indexOutput.writeInt(body[1])
+            indexOutput.writeInt(entry.length)
+        }
+
+        int bodiesOffset = LicenseBundleReader.HEADER_SIZE + index.size() + names.size()
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(bundleFile))).withCloseable { output ->
+            output.writeInt(LicenseBundleReader.MAGIC)
+            output.writeByte(LicenseBundleReader.FORMAT_VERSION)
+            output.writeByte(deflate ? LicenseBundleReader.FLAG_DEFLATE : 0)
+            output.writeInt(entries.size())
+            output.writeInt(bodiesOffset)
+            output.writeShort(0)
+            index.writeTo(output)
+            names.writeTo(output)
+            bodies.writeTo(output)
+        }
+    }
+
+    private static byte[] compress(byte[] text) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION)
+        try {
+            deflater.setInput(text)
+            deflater.finish()
+            ByteArrayOutputStream output = new ByteArrayOutputStream()
+            byte[] buffer = new byte[8192]
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer))
+            }
+            return output.toByteArray()
+        } finally {
+            deflater.end()
+        }
+    }
+
+    private static class Entry {
+        final String name
+        final int start
+        final int length
+
+        Entry(String name, int start, int length) {
+            this.name = name
+            this.start = start
+            this.length = length
+        }
+
+        static Entry fromMetadata(String metadata) {
+            int separator = metadata.indexOf(' ')
+            String[] offsets = metadata.substring(0, separator).split(":")
+            return new Entry(
+                    metadata.substring(separator + 1),
+                    Integer.parseInt(offsets[0]),
+                    Integer.parseInt(offsets[1]))
+        }
+    }
+}
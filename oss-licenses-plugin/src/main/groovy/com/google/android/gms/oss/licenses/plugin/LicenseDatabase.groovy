@@ -0,0 +1,104 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.PomLicense
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+
+/**
+ * Licenses of artifacts keyed by group:name:version, written by the
+ * {@link LicenseDatabaseTask} of a build that can resolve POM files, and
+ * read by the {@link LicensesTask} of builds that cannot.
+ *
+ * The file is JSON meant to be checked in, with the artifacts sorted so that
+ * regenerating it gives a readable diff. An artifact with an empty list of
+ * licenses is known to have none.
+ */
+class LicenseDatabase {
+    protected static final int FORMAT_VERSION = 1
+
+    private final Map<String, List<PomLicense>> entries
+
+    private LicenseDatabase(Map<String, List<PomLicense>> entries) {
+        this.entries = entries
+    }
+
+    static LicenseDatabase read(File databaseFile) throws IOException {
+        def json
+        try {
+            json = new JsonSlurper().parse(databaseFile, "UTF-8")
+        } catch (RuntimeException e) {
+            throw new IOException("Failed to read the license database $databaseFile.", e)
+        }
+        if (!(json instanceof Map) || json.formatVersion != FORMAT_VERSION) {
+            throw new IOException(
+                    "$databaseFile is not a license database of version $FORMAT_VERSION.")
+        }
+
+        Map<String, List<PomLicense>> entries = [:]
+        for (entry in json.artifacts) {
+            String libraryName = entry.libraryName
+            entries[(String) entry.artifact] = entry.licenses.collect { license ->
+                new PomLicense(libraryName, license.name, license.url)
+            }.asImmutable()
+        }
+        return new LicenseDatabase(entries)
+    }
+
+    /**
+     * Writes the licenses of each artifact to databaseFile. All licenses of
+     * an artifact are expected to have the same library name.
+     */
+    static void write(Map<ArtifactInfo, List<PomLicense>> licenses, File databaseFile) {
+        def artifacts = new TreeMap<String, List<PomLicense>>()
+        licenses.each { artifactInfo, artifactLicenses ->
+            artifacts[artifactInfo.toString()] = artifactLicenses
+        }
+        def json = [
+                formatVersion: FORMAT_VERSION,
+                artifacts    : artifacts.collect { artifact, artifactLicenses ->
+                    def entry = [artifact: artifact]
+                    if (!artifactLicenses.isEmpty()) {
+                        entry.libraryName = artifactLicenses[0].libraryName
+                    }
+                    entry.licenses = artifactLicenses.collect { license ->
+                        [name: license.licenseName, url: license.licenseUrl]
+                    }
+                    return entry
+                }
+        ]
+        databaseFile.parentFile?.mkdirs()
+        databaseFile.setText(JsonOutput.prettyPrint(JsonOutput.toJson(json)) + "\n", "UTF-8")
+    }
+
+    boolean contains(ArtifactInfo artifactInfo) {
+        return entries.containsKey(artifactInfo.toString())
+    }
+
+    /**
+     * Returns the licenses of artifactInfo, or null if it is not in the
+     * database.
+     */
+    List<PomLicense> get(ArtifactInfo artifactInfo) {
+        return entries.get(artifactInfo.toString())
+    }
+
+    int size() {
+        return entries.size()
+    }
+}
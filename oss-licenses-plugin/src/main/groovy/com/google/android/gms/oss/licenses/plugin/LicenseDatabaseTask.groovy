@@ -0,0 +1,94 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.PomLicense
+import org.gradle.api.DefaultTask
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.provider.MapProperty
+import org.gradle.api.provider.Provider
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFile
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.Internal
+import org.gradle.api.tasks.OutputFile
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.TaskAction
+import org.slf4j.LoggerFactory
+
+/**
+ * Writes the licenses listed in the POM files of the artifacts in the
+ * {@link ArtifactManifest} to a {@link LicenseDatabase}, which builds without
+ * network access read instead of resolving the POM files.
+ *
+ * Artifacts without a POM file are left out of the database, so the
+ * {@link LicensesTask} reports them as unknown.
+ */
+abstract class LicenseDatabaseTask extends DefaultTask {
+    private static final logger = LoggerFactory.getLogger(LicenseDatabaseTask.class)
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    abstract RegularFileProperty getArtifactManifest()
+
+    /**
+     * POM files of the runtime dependencies and of their parents keyed by
+     * group:name:version.
+     */
+    @Internal
+    abstract MapProperty<String, File> getPomFiles()
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    Provider<Collection<File>> getPomFileInputs() {
+        return pomFiles.map { it.values() }
+    }
+
+    @Input
+    Provider<List<String>> getPomFileArtifacts() {
+        return pomFiles.map { it.keySet().toList() }
+    }
+
+    @OutputFile
+    abstract RegularFileProperty getLicenseDatabase()
+
+    @TaskAction
+    void action() {
+        Map<String, File> pomFileIndex = pomFiles.getOrElse([:])
+        ParentPomLicenses parents = new ParentPomLicenses(pomFileIndex, [:])
+        Map<ArtifactInfo, List<PomLicense>> licenses = [:]
+        for (artifactInfo in ArtifactManifest.read(artifactManifest.asFile.get())) {
+            if (artifactInfo == DependencyUtil.ABSENT_ARTIFACT
+                    || !LicensesTask.hasPomLicenses(artifactInfo)) {
+                continue
+            }
+            List<PomLicense> pomLicenses = LicensesTask.readPomLicenses(
+                    pomFileIndex[artifactInfo.toString()],
+                    artifactInfo.group,
+                    artifactInfo.name,
+                    parents)
+            if (pomLicenses != null) {
+                licenses[artifactInfo] = pomLicenses
+            }
+        }
+
+        File databaseFile = licenseDatabase.asFile.get()
+        LicenseDatabase.write(licenses, databaseFile)
+        logger.info("Wrote the licenses of ${licenses.size()} artifacts to $databaseFile.")
+    }
+}
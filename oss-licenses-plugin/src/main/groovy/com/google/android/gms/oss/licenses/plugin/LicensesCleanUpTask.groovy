@@ -20,27 +20,63 @@ import org.gradle.api.DefaultTask
 import org.gradle.api.tasks.TaskAction
 
 /**
- * Task to clean up the generated dependency.json, third_party_licenses and
- * third_party_license_metadata files.
+ * Task to clean up the generated dependency.json, dependencies.bin, metrics
+ * reports, third_party_licenses, third_party_license_metadata,
+ * third_party_license_bundle, licenses_state.json, license_database.json and
+ * unknown_artifacts.txt files.
  */
 class LicensesCleanUpTask extends DefaultTask {
 
     protected File dependenciesJson
 
+    protected File artifactManifest
+
+    protected List<File> metricsReports = []
+
     protected File dependencyDir
 
     protected File licensesFile
 
     protected File metadataFile
 
+    protected File licenseBundleFile
+
+    protected File licenseDatabaseFile
+
+    protected File unknownArtifactsReport
+
     protected File licensesDir
 
+    protected File licensesStateFile
+
     @TaskAction
     void action() {
         if (dependenciesJson.exists()) {
             dependenciesJson.delete()
         }
 
+        if (artifactManifest?.exists()) {
+            artifactManifest.delete()
+        }
+
+        for (metricsReport in metricsReports) {
+            if (metricsReport.exists()) {
+                metricsReport.delete()
+            }
+        }
+
+        if (licensesStateFile?.exists()) {
+            licensesStateFile.delete()
+        }
+
+        if (licenseDatabaseFile?.exists()) {
+            licenseDatabaseFile.delete()
+        }
+
+        if (unknownArtifactsReport?.exists()) {
+            unknownArtifactsReport.delete()
+        }
+
         if (dependencyDir.isDirectory() && dependencyDir.list().length == 0) {
             dependencyDir.delete()
         }
@@ -53,6 +89,10 @@ class LicensesCleanUpTask extends DefaultTask {
             metadataFile.delete()
         }
 
+        if (licenseBundleFile?.exists()) {
+            licenseBundleFile.delete()
+        }
+
         if (licensesDir.isDirectory() && licensesDir.list().length == 0) {
             licensesDir.delete()
         }
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.PomLicense
+import com.google.android.gms.oss.licenses.plugin.PomLicenseReader.PomLicenses
+import org.gradle.api.services.BuildService
+import org.gradle.api.services.BuildServiceParameters
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.FutureTask
+
+/**
+ * Keeps the licenses read from POM files and Google Play Services artifacts
+ * for the duration of a build, so that the {@link LicensesTask}s of variants
+ * sharing dependencies read each of them only once.
+ */
+abstract class LicensesService implements BuildService<BuildServiceParameters.None> {
+    private final Map<ArtifactInfo, FutureTask<List<PomLicense>>> pomLicenses =
+            new ConcurrentHashMap<>()
+    private final Map<ArtifactInfo, FutureTask<Map<String, byte[]>>> googlePlayServiceLicenses =
+            new ConcurrentHashMap<>()
+    private final Map<File, FutureTask<PomLicenseCache>> pomLicenseCaches =
+            new ConcurrentHashMap<>()
+
+    /**
+     * POM files of parent POMs resolved by
+     * {@link DependencyUtil#getPomFileIndex}, empty for parents without one.
+     */
+    final Map<ArtifactInfo, Optional<File>> parentPomFiles = new ConcurrentHashMap<>()
+
+    /**
+     * POM files read for their parents by {@link DependencyUtil#getPomFileIndex},
+     * and for the licenses they pass on to the POM files that inherit them,
+     * see {@link ParentPomLicenses}.
+     */
+    final Map<File, PomLicenses> parentPoms = new ConcurrentHashMap<>()
+
+    /**
+     * Returns the POM licenses of artifactInfo, calling reader on the first
+     * request only. Null results are not kept.
+     */
+    List<PomLicense> getPomLicenses(
+            ArtifactInfo artifactInfo,
+            Callable<List<PomLicense>> reader) {
+        return getOrRead(pomLicenses, artifactInfo) { reader.call()?.asImmutable() }
+    }
+
+    /**
+     * Returns the {@link PomLicenseCache} in cacheDir, which is loaded on the
+     * first request only, so the tasks of a build share one instance.
+     */
+    PomLicenseCache getPomLicenseCache(File cacheDir) {
+        return getOrRead(pomLicenseCaches, cacheDir) { PomLicenseCache.load(cacheDir) }
+    }
+
+    /**
+     * Returns the licenses embedded in the Google Play Services artifact
+     * artifactInfo, calling reader on the first request only.
+     */
+    Map<String, byte[]> getGooglePlayServiceLicenses(
+            ArtifactInfo artifactInfo,
+            Callable<Map<String, byte[]>> reader) {
+        return getOrRead(googlePlayServiceLicenses, artifactInfo) {
+            reader.call().asImmutable()
+        }
+    }
+
+    /**
+     * Returns the value of key in values, calling reader on the first request
+     * only. The reader runs outside the locks of values, so readers of other
+     * keys are not blocked and may request values themselves. Concurrent
+     * requests of the same key wait for the first reader. Null values and
+     * failures are not kept.
+     */
+    private static <K, V> V getOrRead(Map<K, FutureTask<V>> values, K key, Callable<V> reader) {
+        FutureTask<V> task = new FutureTask<>(reader)
+        FutureTask<V> existingTask = values.putIfAbsent(key, task)
+        if (existingTask == null) {
+            existingTask = task
+            task.run()
+        }
+        try {
+            V value = existingTask.get()
+            if (value == null) {
+                values.remove(key, existingTask)
+            }
+            return value
+        } catch (ExecutionException e) {
+            values.remove(key, existingTask)
+            throw e.cause
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.ArtifactLicenses
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.Dependency
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.DependencyLicense
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+import org.slf4j.LoggerFactory
+
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Licenses read by the previous run of a {@link LicensesTask}, kept per
+ * artifact together with a fingerprint of the files they were read from.
+ * Artifacts whose files did not change are not read again, and artifacts
+ * that are no longer dependencies are dropped when the state is saved. The
+ * fingerprint of licenses inherited from parent POM files covers those files
+ * too, so the licenses are read again when a parent POM file changes.
+ *
+ * License texts shared by several artifacts are stored once.
+ */
+class LicensesState {
+    protected static final int FORMAT_VERSION = 3
+    private static final String ABSENT_FILE = "-"
+
+    private static final logger = LoggerFactory.getLogger(LicensesState.class)
+
+    private final File stateFile
+    private final Map<ArtifactInfo, Entry> previousEntries
+    private final Map<ArtifactInfo, Entry> entries = new ConcurrentHashMap<>()
+
+    private LicensesState(File stateFile, Map<ArtifactInfo, Entry> previousEntries) {
+        this.stateFile = stateFile
+        this.previousEntries = previousEntries
+    }
+
+    static LicensesState load(File stateFile) {
+        return new LicensesState(stateFile, readEntries(stateFile))
+    }
+
+    /**
+     * Returns a fingerprint of the path, size and modification time of files.
+     * Null files are allowed.
+     */
+    static String fingerprint(File... files) {
+        return files.collect { file ->
+            file == null ? ABSENT_FILE : "${file.absolutePath}:${file.length()}:${file.lastModified()}"
+        }.join("|")
+    }
+
+    /**
+     * Returns the licenses the previous run read for artifactInfo, or null if
+     * there are none or they were read from files with another fingerprint.
+     * The POM files of the parents they were inherited from are looked up in
+     * parents. Returned licenses are kept when the state is saved.
+     */
+    ArtifactLicenses get(
+            ArtifactInfo artifactInfo,
+            String fingerprint,
+            ParentPomLicenses parents = null) {
+        Entry entry = previousEntries[artifactInfo]
+        if (entry == null
+                || entry.fingerprint != withParents(fingerprint, entry.parents, parents)) {
+            return null
+        }
+        entries[artifactInfo] = entry
+        return entry.licenses
+    }
+
+    /**
+     * Keeps the licenses read for artifactInfo from files with fingerprint,
+     * and from the POM files of parentArtifacts, which are looked up in
+     * parents.
+     */
+    void put(
+            ArtifactInfo artifactInfo,
+            String fingerprint,
+            ArtifactLicenses licenses,
+            List<ArtifactInfo> parentArtifacts = [],
+            ParentPomLicenses parents = null) {
+        entries[artifactInfo] = new Entry(
+                withParents(fingerprint, parentArtifacts, parents),
+                parentArtifacts,
+                licenses)
+    }
+
+    private static String withParents(
+            String fingerprint,
+            List<ArtifactInfo> parentArtifacts,
+            ParentPomLicenses parents) {
+        if (parentArtifacts.isEmpty()) {
+            return fingerprint
+        }
+        File[] parentPomFiles = parentArtifacts.collect { parents?.getPomFile(it) } as File[]
+        return "${fingerprint}|${LicensesState.fingerprint(parentPomFiles)}"
+    }
+
+    /**
+     * Writes the licenses that were read or reused since the state was
+     * loaded, replacing the previous state. Nothing is written if all the
+     * previous licenses were reused and none were read.
+     */
+    void save() {
+        if (entries.size() == previousEntries.size()
+                && entries.every { artifactInfo, entry -> previousEntries[artifactInfo].is(entry) }) {
+            logger.info("Licenses state $stateFile is unchanged.")
+            return
+        }
+        List<String> texts = []
+        Map<String, Integer> textIndices = [:]
+        def textIndex = { byte[] text ->
+            String encodedText = text.encodeBase64().toString()
+            Integer index = textIndices[encodedText]
+            if (index == null) {
+                index = texts.size()
+                texts.add(encodedText)
+                textIndices[encodedText] = index
+            }
+            return index
+        }
+
+        def json = [
+                formatVersion: FORMAT_VERSION,
+                artifacts    : entries.collect { artifactInfo, entry ->
+                    [
+                            group                    : artifactInfo.group,
+                            name                     : artifactInfo.name,
+                            version                  : artifactInfo.version,
+                            fingerprint              : entry.fingerprint,
+                            parents                  : entry.parents.collect { parent ->
+                                [
+                                        group  : parent.group,
+                                        name   : parent.name,
+                                        version: parent.version
+                                ]
+                            },
+                            pomLicenses              : entry.licenses.pomLicenses.collect { license ->
+                                [
+                                        key    : license.dependency.key,
+                                        name   : license.dependency.name,
+                                        license: textIndex(license.license)
+                                ]
+                            },
+                            googlePlayServiceLicenses: entry.licenses.googlePlayServiceLicenses.collect { key, license ->
+                                [
+                                        key    : key,
+                                        license: textIndex(license)
+                                ]
+                            }
+                    ]
+                },
+                texts        : texts
+        ]
+        try {
+            stateFile.parentFile.mkdirs()
+            File tempFile = File.createTempFile(stateFile.name, ".tmp", stateFile.parentFile)
+            tempFile.setText(JsonOutput.toJson(json), "UTF-8")
+            Files.move(tempFile.toPath(), stateFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+            logger.info("Saved licenses of ${entries.size()} artifacts to $stateFile.")
+        } catch (IOException e) {
+            logger.warn("Failed to save licenses state $stateFile", e)
+        }
+    }
+
+    private static Map<ArtifactInfo, Entry> readEntries(File stateFile) {
+        Map<ArtifactInfo, Entry> entries = [:]
+        if (!stateFile.exists()) {
+            return entries
+        }
+        try {
+            def json = new JsonSlurper().parse(stateFile, "UTF-8")
+            if (json.formatVersion != FORMAT_VERSION) {
+                logger.info("Ignoring licenses state $stateFile of version ${json.formatVersion}")
+                return entries
+            }
+            List<byte[]> texts = json.texts.collect { String text -> text.decodeBase64() }
+            for (artifact in json.artifacts) {
+                List<DependencyLicense> pomLicenses = artifact.pomLicenses.collect { license ->
+                    new DependencyLicense(
+                            new Dependency(license.key, license.name),
+                            texts[(int) license.license])
+                }
+                Map<String, byte[]> googlePlayServiceLicenses = [:]
+                for (license in artifact.googlePlayServiceLicenses) {
+                    googlePlayServiceLicenses[(String) license.key] = texts[(int) license.license]
+                }
+                List<ArtifactInfo> parents = artifact.parents.collect { parent ->
+                    new ArtifactInfo(parent.group, parent.name, parent.version)
+                }
+                entries[new ArtifactInfo(artifact.group, artifact.name, artifact.version)] =
+                        new Entry(
+                                artifact.fingerprint,
+                                parents,
+                                new ArtifactLicenses(pomLicenses, googlePlayServiceLicenses))
+            }
+        } catch (Exception e) {
+            logger.warn("Ignoring unreadable licenses state $stateFile", e)
+            entries.clear()
+        }
+        return entries
+    }
+
+    private static class Entry {
+        final String fingerprint
+        final List<ArtifactInfo> parents
+        final ArtifactLicenses licenses
+
+        Entry(String fingerprint, List<ArtifactInfo> parents, ArtifactLicenses licenses) {
+            this.fingerprint = fingerprint
+            this.parents = parents
+            this.licenses = licenses
+        }
+    }
+}
@@ -16,23 +16,45 @@
 
 package com.google.android.gms.oss.licenses.plugin
 
+import com.google.android.gms.oss.licenses.plugin.PomLicenseReader.PomLicenses
 import groovy.json.JsonSlurper
 import org.gradle.api.DefaultTask
+import org.gradle.api.file.DirectoryProperty
 import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.provider.MapProperty
+import org.gradle.api.provider.Property
+import org.gradle.api.provider.Provider
+import org.gradle.api.tasks.CacheableTask
+import org.gradle.api.tasks.Input
 import org.gradle.api.tasks.InputFile
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.Internal
 import org.gradle.api.tasks.OutputDirectory
 import org.gradle.api.tasks.OutputFile
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
 import org.gradle.api.tasks.TaskAction
 import org.slf4j.LoggerFactory
 
+import java.security.MessageDigest
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.FutureTask
 import java.util.zip.ZipEntry
 import java.util.zip.ZipFile
 
 /**
- * Task to find available licenses from the artifacts stored in the json
- * file generated by DependencyTask, and then generate the third_party_licenses
- * and third_party_license_metadata file.
+ * Task to find available licenses from the artifacts stored in the manifest
+ * or json file generated by DependencyTask, and then generate the
+ * third_party_licenses and third_party_license_metadata file.
+ *
+ * The POM files and library files that licenses are read from are resolved
+ * before the task runs, so the task does not use the Project at execution
+ * time and its outputs can be restored from the build cache.
  */
+@CacheableTask
 abstract class LicensesTask extends DefaultTask {
     private static final String UTF_8 = "UTF-8"
     private static final byte[] LINE_SEPARATOR = System
@@ -44,22 +66,114 @@ abstract class LicensesTask extends DefaultTask {
     private static final String FIREBASE_GROUP = "com.google.firebase"
     private static final String FAIL_READING_LICENSES_ERROR =
             "Failed to read license text."
+    private static final String LICENSE_DIGEST_ALGORITHM = "SHA-256"
+    private static final byte SPACE = 0x20
+    private static final byte TAB = 0x09
+    private static final byte CARRIAGE_RETURN = 0x0D
 
     private static final logger = LoggerFactory.getLogger(LicensesTask.class)
 
     protected int start = 0
     protected Set<String> googleServiceLicenses = []
     protected Map<String, String> licensesMap = [:]
+    /**
+     * Offsets of the license texts written so far, keyed by the digest of
+     * the text.
+     */
     protected Map<String, String> licenseOffsets = [:]
+    /**
+     * Digest of the license texts, created on first use. It is transient,
+     * since a MessageDigest cannot be stored in the configuration cache.
+     */
+    protected transient MessageDigest licenseDigest
+    protected OutputStream licensesOutput
+    protected PomLicenseCache pomLicenseCache
+    protected ParentPomLicenses parentPomLicenses
+    protected LicensesState licensesState
+    protected LicenseDatabase database
+    /**
+     * Artifacts whose POM licenses are not in the {@link #database}, as
+     * group:name:version.
+     */
+    protected Set<String> unknownArtifacts = new TreeSet<>()
+    protected final TaskMetrics metrics = new TaskMetrics()
+    protected static final String PHASE_READ_ARTIFACTS = "readArtifacts"
+    protected static final String PHASE_LOAD_CACHES = "loadCaches"
+    protected static final String PHASE_RESOLVE_FILES = "resolveFiles"
+    protected static final String PHASE_READ_LICENSES = "readLicenses"
+    protected static final String PHASE_PARSE_POMS = "parsePoms"
+    protected static final String PHASE_READ_LIBRARIES = "readLibraries"
+    protected static final String PHASE_WRITE_METADATA = "writeMetadata"
+    protected static final String PHASE_WRITE_LICENSE_BUNDLE = "writeLicenseBundle"
+    protected static final String PHASE_WRITE_UNKNOWN_ARTIFACTS = "writeUnknownArtifacts"
+    protected static final String PHASE_SAVE_CACHES = "saveCaches"
+    protected static final String ARTIFACTS = "artifacts"
+    protected static final String INCREMENTAL_HITS = "incrementalHits"
+    protected static final String POM_CACHE_HITS = "pomCacheHits"
+    protected static final String POM_CACHE_MISSES = "pomCacheMisses"
+    protected static final String POM_FILES_PARSED = "pomFilesParsed"
+    protected static final String DATABASE_HITS = "databaseHits"
+    protected static final String UNKNOWN_ARTIFACTS = "unknownArtifacts"
+    protected static final String LIBRARIES_READ = "librariesRead"
+    protected static final String BYTES_INFLATED = "bytesInflated"
+    protected static final String LICENSES_WRITTEN = "licensesWritten"
+    protected static final String LICENSES_DEDUPLICATED = "licensesDeduplicated"
+    protected static final String LICENSE_BYTES_WRITTEN = "licenseBytesWritten"
     protected static final String ABSENT_DEPENDENCY_KEY = "Debug License Info"
     protected static final String ABSENT_DEPENDENCY_TEXT = ("Licenses are " +
             "only provided in build variants " +
             "(e.g. release) where the Android Gradle Plugin " +
             "generates an app dependency list.")
 
+    /**
+     * {@link ArtifactManifest} of the artifacts to find licenses for. Takes
+     * precedence over {@link #getDependenciesJson()}.
+     */
+    @InputFile
+    @org.gradle.api.tasks.Optional
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    abstract RegularFileProperty getArtifactManifest()
+
     @InputFile
+    @org.gradle.api.tasks.Optional
+    @PathSensitive(PathSensitivity.NAME_ONLY)
     abstract RegularFileProperty getDependenciesJson()
 
+    /**
+     * POM files of the runtime dependencies keyed by group:name:version.
+     */
+    @Internal
+    abstract MapProperty<String, File> getPomFiles()
+
+    /**
+     * Library files of the Google Play Services and Firebase runtime
+     * dependencies keyed by group:name:version.
+     */
+    @Internal
+    abstract MapProperty<String, File> getLibraryFiles()
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    Provider<Collection<File>> getPomFileInputs() {
+        return pomFiles.map { it.values() }
+    }
+
+    @Input
+    Provider<List<String>> getPomFileArtifacts() {
+        return pomFiles.map { it.keySet().toList() }
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    Provider<Collection<File>> getLibraryFileInputs() {
+        return libraryFiles.map { it.values() }
+    }
+
+    @Input
+    Provider<List<String>> getLibraryFileArtifacts() {
+        return libraryFiles.map { it.keySet().toList() }
+    }
+
     @OutputDirectory
     File rawResourceDir
 
@@ -69,46 +183,393 @@ abstract class LicensesTask extends DefaultTask {
     @OutputFile
     File licensesMetadata
 
+    /**
+     * Number of threads used to read licenses from POM files and AARs. The
+     * licenses are read one artifact at a time on the task thread unless this
+     * is greater than 1. The output is the same either way.
+     */
+    @Internal
+    abstract Property<Integer> getParallelism()
+
+    /**
+     * Whether license texts that only differ in whitespace and line endings
+     * are written once. The first of them is written as is. Only identical
+     * texts are written once if this is not set.
+     */
+    @Input
+    @org.gradle.api.tasks.Optional
+    abstract Property<Boolean> getCanonicalizeLicenses()
+
+    /**
+     * Directory of the {@link PomLicenseCache} shared between builds. POM
+     * licenses are not cached if this is not set. The cache only saves
+     * parsing the POM files, which are still needed in {@link #getPomFiles()}
+     * since the cache is not an input of the task.
+     */
+    @Internal
+    abstract DirectoryProperty getPomLicenseCacheDir()
+
+    /**
+     * Service sharing the licenses read by the tasks of a build. Licenses are
+     * only read for this task if this is not set.
+     */
+    @Internal
+    abstract Property<LicensesService> getLicensesService()
+
+    /**
+     * File keeping the licenses read for each artifact by the previous run.
+     * Only artifacts that were added or whose files changed since are read
+     * again, and the output is rewritten from the kept licenses. Every
+     * artifact is read if this is not set.
+     */
+    @Internal
+    abstract RegularFileProperty getLicensesStateFile()
+
+    /**
+     * {@link LicenseBundleWriter indexed bundle} of the licenses, written in
+     * addition to the licenses and metadata files if set.
+     */
+    @OutputFile
+    @org.gradle.api.tasks.Optional
+    abstract RegularFileProperty getLicenseBundle()
+
+    /**
+     * Whether each license text in the license bundle is compressed.
+     */
+    @Input
+    @org.gradle.api.tasks.Optional
+    abstract Property<Boolean> getCompressLicenseBundle()
+
+    /**
+     * File the {@link TaskMetrics} of the task are written to as JSON. It is
+     * not an output of the task, so it is only written when the task runs.
+     */
+    @Internal
+    abstract RegularFileProperty getMetricsReport()
+
+    /**
+     * {@link LicenseDatabase} the POM licenses of artifacts are read from if
+     * set. The POM files of artifacts in the database are not needed, so
+     * they can be left out of {@link #getPomFiles()}.
+     */
+    @InputFile
+    @org.gradle.api.tasks.Optional
+    @PathSensitive(PathSensitivity.NONE)
+    abstract RegularFileProperty getLicenseDatabase()
+
+    /**
+     * File listing the artifacts whose POM licenses are not in the license
+     * database, one group:name:version per line. Only written if the license
+     * database is set.
+     */
+    @OutputFile
+    @org.gradle.api.tasks.Optional
+    abstract RegularFileProperty getUnknownArtifactsReport()
+
     @TaskAction
     void action() {
         initOutputDir()
-        initLicenseFile()
-        initLicensesMetadata()
 
-        File dependenciesJsonFile = dependenciesJson.asFile.get()
-        def artifactInfoSet = loadDependenciesJson(dependenciesJsonFile)
+        Set<ArtifactInfo> artifactInfoSet = metrics.time(PHASE_READ_ARTIFACTS) {
+            artifactManifest.isPresent()
+                    ? ArtifactManifest.read(artifactManifest.asFile.get())
+                    : loadDependenciesJson(dependenciesJson.asFile.get())
+        }
+        metrics.increment(ARTIFACTS, artifactInfoSet.size())
+
+        metrics.time(PHASE_LOAD_CACHES) {
+            if (pomLicenseCacheDir.isPresent()) {
+                File cacheDir = pomLicenseCacheDir.get().asFile
+                pomLicenseCache = licensesService.isPresent()
+                        ? licensesService.get().getPomLicenseCache(cacheDir)
+                        : PomLicenseCache.load(cacheDir)
+            }
+            if (licensesStateFile.isPresent()) {
+                licensesState = LicensesState.load(licensesStateFile.get().asFile)
+            }
+            if (licenseDatabase.isPresent()) {
+                database = LicenseDatabase.read(licenseDatabase.get().asFile)
+            }
+        }
+        // Resolves the POM and library files now if they were not resolved
+        // when the task graph was stored in the configuration cache.
+        metrics.time(PHASE_RESOLVE_FILES) {
+            pomFiles.getOrElse([:])
+            libraryFiles.getOrElse([:])
+        }
+        metrics.time(PHASE_READ_LICENSES) {
+            writeLicenses { addLicenses(artifactInfoSet) }
+        }
+        metrics.time(PHASE_WRITE_METADATA) {
+            writeMetadata()
+        }
+        if (licenseBundle.isPresent()) {
+            metrics.time(PHASE_WRITE_LICENSE_BUNDLE) {
+                LicenseBundleWriter.write(
+                        licenses.bytes,
+                        licensesMap.values(),
+                        licenseBundle.get().asFile,
+                        compressLicenseBundle.getOrElse(false))
+            }
+        }
+        if (database != null && unknownArtifactsReport.isPresent()) {
+            metrics.time(PHASE_WRITE_UNKNOWN_ARTIFACTS) {
+                writeUnknownArtifacts(unknownArtifactsReport.get().asFile)
+            }
+        }
+        metrics.time(PHASE_SAVE_CACHES) {
+            pomLicenseCache?.save()
+            licensesState?.save()
+        }
+
+        metrics.log(getLogger(), path)
+        if (metricsReport.isPresent()) {
+            metrics.write(path, metricsReport.get().asFile)
+        }
+    }
+
+    /**
+     * Keeps a single buffered stream on the licenses file open while body
+     * runs, so appended license texts do not reopen the file each time.
+     */
+    protected void writeLicenses(Runnable body) {
+        licenses.withOutputStream { stream ->
+            licensesOutput = stream
+            try {
+                body.run()
+            } finally {
+                licensesOutput = null
+            }
+        }
+    }
 
+    protected void addLicenses(Set<ArtifactInfo> artifactInfoSet) {
         if (DependencyUtil.ABSENT_ARTIFACT in artifactInfoSet) {
             if (artifactInfoSet.size() > 1) {
                 throw new IllegalStateException("artifactInfoSet that contains EMPTY_ARTIFACT should not contain other artifacts.")
             }
             addDebugLicense()
         } else {
+            Map<String, File> pomFileIndex = pomFiles.getOrElse([:])
+            LicensesService service = licensesService.getOrNull()
+            parentPomLicenses = new ParentPomLicenses(
+                    pomFileIndex,
+                    service != null ? service.parentPoms : new ConcurrentHashMap<>())
+            List<Callable<ArtifactLicenses>> readers = []
             for (artifactInfo in artifactInfoSet) {
+                // Add license info for google-play-services itself
+                boolean readPom = hasPomLicenses(artifactInfo)
+                File artifactFile = null
                 if (isGoogleServices(artifactInfo.group)) {
-                    // Add license info for google-play-services itself
-                    if (!artifactInfo.name.endsWith(LICENSE_ARTIFACT_SUFFIX)) {
-                        addLicensesFromPom(artifactInfo)
-                    }
                     // Add transitive licenses info for google-play-services. For
                     // post-granular versions, this is located in the artifact
                     // itself, whereas for pre-granular versions, this information
                     // is located at the complementary license artifact as a runtime
                     // dependency.
                     if (isGranularVersion(artifactInfo.version) || artifactInfo.name.endsWith(LICENSE_ARTIFACT_SUFFIX)) {
-                        addGooglePlayServiceLicenses(artifactInfo)
+                        artifactFile = getGooglePlayServicesArtifactFile(artifactInfo)
                     }
-                } else {
-                    addLicensesFromPom(artifactInfo)
                 }
+                readers.add(artifactLicensesReader(
+                        artifactInfo,
+                        readPom,
+                        pomFileIndex[artifactInfo.toString()],
+                        artifactFile))
             }
+            readLicenses(readers)
+        }
+    }
+
+    /**
+     * Returns whether the licenses of artifactInfo are listed in its POM
+     * file, which is the case for all artifacts but the complementary license
+     * artifacts of pre-granular Google Play Services.
+     */
+    protected static boolean hasPomLicenses(ArtifactInfo artifactInfo) {
+        return !(isGoogleServices(artifactInfo.group)
+                && artifactInfo.name.endsWith(LICENSE_ARTIFACT_SUFFIX))
+    }
+
+    /**
+     * Runs each reader and appends the licenses it returns, in order. With a
+     * parallelism above 1 the readers run on a bounded thread pool first, and
+     * their licenses are still appended in order on the task thread so the
+     * output does not depend on the parallelism. The first reader to fail in
+     * that order fails the task with its exception, and the readers still
+     * running are interrupted.
+     */
+    protected void readLicenses(List<Callable<ArtifactLicenses>> readers) {
+        int threads = Math.min(parallelism.getOrElse(1), readers.size())
+        if (threads <= 1) {
+            for (reader in readers) {
+                appendArtifactLicenses(reader.call())
+            }
+            return
+        }
+
+        def executor = Executors.newFixedThreadPool(threads)
+        try {
+            // The readers are closures, which are also Runnables, so they are
+            // wrapped explicitly for their results to be kept.
+            List<FutureTask<ArtifactLicenses>> futures = []
+            for (reader in readers) {
+                FutureTask<ArtifactLicenses> future = new FutureTask<>(reader)
+                executor.execute(future)
+                futures.add(future)
+            }
+            for (future in futures) {
+                try {
+                    appendArtifactLicenses(future.get())
+                } catch (ExecutionException e) {
+                    throw e.cause
+                }
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    /**
+     * Returns a reader of the licenses of one artifact: those listed in its
+     * POM file if readPom is set, and those embedded in artifactFile if it is
+     * not null. POM licenses in the {@link #database} are taken from it
+     * instead. Licenses the previous run read from the same files, including
+     * the parent POM files they were inherited from, are reused from
+     * {@link #licensesState}. POM licenses that could not be read are not
+     * kept for the next run.
+     */
+    protected Callable<ArtifactLicenses> artifactLicensesReader(
+            ArtifactInfo artifactInfo,
+            boolean readPom,
+            File pomFile,
+            File artifactFile) {
+        LicensesState state = licensesState
+        ParentPomLicenses parents = parentPomLicenses
+        TaskMetrics taskMetrics = metrics
+        List<PomLicense> databaseLicenses = readPom ? database?.get(artifactInfo) : null
+        if (readPom && database != null && databaseLicenses == null) {
+            unknownArtifacts.add(artifactInfo.toString())
+            metrics.increment(UNKNOWN_ARTIFACTS)
         }
+        // Licenses taken from the database are read again when it changes.
+        String fingerprint = LicensesState.fingerprint(
+                readPom ? (databaseLicenses != null ? licenseDatabase.get().asFile : pomFile) : null,
+                artifactFile)
+        Callable<List<DependencyLicense>> pomReader = null
+        if (databaseLicenses != null) {
+            pomReader = {
+                taskMetrics.increment(DATABASE_HITS)
+                toDependencyLicenses(databaseLicenses, artifactInfo.group, artifactInfo.name)
+            } as Callable<List<DependencyLicense>>
+        } else if (readPom) {
+            pomReader = pomLicensesReader(pomFile, artifactInfo)
+        }
+        Callable<Map<String, byte[]>> googlePlayServiceReader = artifactFile != null
+                ? googlePlayServiceLicensesReader(artifactInfo, artifactFile)
+                : null
+        return {
+            ArtifactLicenses licenses = state?.get(artifactInfo, fingerprint, parents)
+            if (licenses != null) {
+                taskMetrics.increment(INCREMENTAL_HITS)
+            } else {
+                List<DependencyLicense> pomLicenses = pomReader?.call()
+                licenses = new ArtifactLicenses(
+                        pomLicenses ?: [],
+                        googlePlayServiceReader != null ? googlePlayServiceReader.call() : [:])
+                if (pomReader == null || pomLicenses != null) {
+                    List<ArtifactInfo> parentArtifacts = pomFile != null && parents != null
+                            ? parents.getParents(pomFile)
+                            : []
+                    state?.put(artifactInfo, fingerprint, licenses, parentArtifacts, parents)
+                }
+            }
+            return licenses
+        } as Callable<ArtifactLicenses>
+    }
 
-        writeMetadata()
+    /**
+     * Returns a reader of the licenses listed in or inherited by pomFile,
+     * which returns null if they could not be read. Only licenses that were
+     * read are cached.
+     */
+    protected Callable<List<DependencyLicense>> pomLicensesReader(
+            File pomFile,
+            ArtifactInfo artifactInfo) {
+        PomLicenseCache cache = pomLicenseCache
+        ParentPomLicenses parents = parentPomLicenses
+        LicensesService service = licensesService.getOrNull()
+        TaskMetrics taskMetrics = metrics
+        return {
+            Callable<List<PomLicense>> reader = {
+                List<PomLicense> pomLicenses = cache?.get(artifactInfo)
+                if (cache != null) {
+                    taskMetrics.increment(pomLicenses != null ? POM_CACHE_HITS : POM_CACHE_MISSES)
+                }
+                if (pomLicenses == null) {
+                    pomLicenses = taskMetrics.time(PHASE_PARSE_POMS) {
+                        readPomLicenses(pomFile, artifactInfo.group, artifactInfo.name, parents)
+                    }
+                    taskMetrics.increment(POM_FILES_PARSED)
+                    if (pomLicenses != null) {
+                        cache?.put(artifactInfo, pomLicenses)
+                    }
+                }
+                return pomLicenses
+            } as Callable<List<PomLicense>>
+            List<PomLicense> pomLicenses = service != null
+                    ? service.getPomLicenses(artifactInfo, reader)
+                    : reader.call()
+            return pomLicenses != null
+                    ? toDependencyLicenses(pomLicenses, artifactInfo.group, artifactInfo.name)
+                    : null
+        } as Callable<List<DependencyLicense>>
     }
 
-    private static Set<ArtifactInfo> loadDependenciesJson(File jsonFile) {
-        def allDependencies = new JsonSlurper().parse(jsonFile)
+    protected Callable<Map<String, byte[]>> googlePlayServiceLicensesReader(
+            ArtifactInfo artifactInfo,
+            File artifactFile) {
+        LicensesService service = licensesService.getOrNull()
+        // Licenses that are already known are only skipped when reading on
+        // the task thread, where googleServiceLicenses is up to date, and when
+        // the result is neither shared with other tasks nor kept for the next
+        // run.
+        Set<String> knownLicenses = (parallelism.getOrElse(1) <= 1
+                && service == null
+                && licensesState == null)
+                ? googleServiceLicenses
+                : Collections.<String> emptySet()
+        TaskMetrics taskMetrics = metrics
+        return {
+            Callable<Map<String, byte[]>> reader = {
+                taskMetrics.time(PHASE_READ_LIBRARIES) {
+                    readGooglePlayServiceLicenses(artifactFile, knownLicenses, taskMetrics)
+                }
+            } as Callable<Map<String, byte[]>>
+            return service != null
+                    ? service.getGooglePlayServiceLicenses(artifactInfo, reader)
+                    : reader.call()
+        } as Callable<Map<String, byte[]>>
+    }
+
+    /**
+     * Writes the {@link #unknownArtifacts} to reportFile, and warns about
+     * them since their licenses depend on resolving their POM files.
+     */
+    protected void writeUnknownArtifacts(File reportFile) {
+        reportFile.withWriter(UTF_8) { writer ->
+            for (artifact in unknownArtifacts) {
+                writer.write(artifact)
+                writer.write(System.lineSeparator())
+            }
+        }
+        if (!unknownArtifacts.isEmpty()) {
+            logger.warn("${unknownArtifacts.size()} artifacts are not in the license " +
+                    "database ${licenseDatabase.get().asFile}, see $reportFile.")
+        }
+    }
+
+    protected static Set<ArtifactInfo> loadDependenciesJson(File jsonFile) {
+        def allDependencies = new JsonSlurper().parse(jsonFile, UTF_8)
         def artifactInfoSet = new HashSet<ArtifactInfo>()
         for (entry in allDependencies) {
             ArtifactInfo artifactInfo = artifactInfoFromEntry(entry)
@@ -157,48 +618,83 @@ abstract class LicensesTask extends DefaultTask {
     }
 
     protected void addGooglePlayServiceLicenses(ArtifactInfo artifactInfo) {
-        File artifactFile = DependencyUtil.getLibraryFile(getProject(), artifactInfo)
+        File artifactFile = getGooglePlayServicesArtifactFile(artifactInfo)
+        if (artifactFile != null) {
+            addGooglePlayServiceLicenses(artifactFile)
+        }
+    }
+
+    private File getGooglePlayServicesArtifactFile(ArtifactInfo artifactInfo) {
+        File artifactFile = libraryFiles.getting(artifactInfo.toString()).getOrNull()
         if (artifactFile == null) {
             logger.warn("Unable to find Google Play Services Artifact for $artifactInfo")
-            return
         }
-        addGooglePlayServiceLicenses(artifactFile)
+        return artifactFile
     }
 
     protected void addGooglePlayServiceLicenses(File artifactFile) {
-        ZipFile licensesZip = new ZipFile(artifactFile)
-
-        ZipEntry jsonFile = licensesZip.getEntry("third_party_licenses.json")
-        ZipEntry txtFile = licensesZip.getEntry("third_party_licenses.txt")
+        appendGooglePlayServiceLicenses(
+                readGooglePlayServiceLicenses(artifactFile, googleServiceLicenses, metrics))
+    }
 
-        if (!jsonFile || !txtFile) {
-            return
+    protected void appendGooglePlayServiceLicenses(Map<String, byte[]> licenses) {
+        licenses.each { key, content ->
+            if (!googleServiceLicenses.contains(key)) {
+                googleServiceLicenses.add(key)
+                appendDependency(key, content)
+            }
         }
+    }
 
-        JsonSlurper jsonSlurper = new JsonSlurper()
-        Object licensesObj = licensesZip.getInputStream(jsonFile).withCloseable {
-            jsonSlurper.parse(it)
-        }
-        if (licensesObj == null) {
-            return
-        }
+    /**
+     * Returns the licenses embedded in a Google Play Services artifact keyed
+     * by license name, in the order of third_party_licenses.json. Licenses in
+     * knownLicenses are not read. The artifact and the bytes inflated from it
+     * are counted in metrics if it is set.
+     */
+    protected static Map<String, byte[]> readGooglePlayServiceLicenses(
+            File artifactFile,
+            Set<String> knownLicenses,
+            TaskMetrics metrics = null) {
+        metrics?.increment(LIBRARIES_READ)
+        Map<String, byte[]> licenses = [:]
+        new ZipFile(artifactFile).withCloseable { ZipFile licensesZip ->
+            ZipEntry jsonFile = licensesZip.getEntry("third_party_licenses.json")
+            ZipEntry txtFile = licensesZip.getEntry("third_party_licenses.txt")
+
+            if (!jsonFile || !txtFile) {
+                return
+            }
 
-        for (entry in licensesObj) {
-            String key = entry.key
-            int startValue = entry.value.start
-            int lengthValue = entry.value.length
+            JsonSlurper jsonSlurper = new JsonSlurper()
+            Object licensesObj = licensesZip.getInputStream(jsonFile).withCloseable {
+                jsonSlurper.parse(it)
+            }
+            if (licensesObj == null) {
+                return
+            }
 
-            if (!googleServiceLicenses.contains(key)) {
-                licensesZip.getInputStream(txtFile).withCloseable {
-                    byte[] content = getBytesFromInputStream(
-                            it,
+            // Inflated at most once, on the first license that is not known yet.
+            byte[] licensesText = null
+            for (entry in licensesObj) {
+                String key = entry.key
+                int startValue = entry.value.start
+                int lengthValue = entry.value.length
+
+                if (!knownLicenses.contains(key) && !licenses.containsKey(key)) {
+                    if (licensesText == null) {
+                        licensesText = getBytesFromInputStream(
+                                licensesZip.getInputStream(txtFile), 0, 0)
+                        metrics?.increment(BYTES_INFLATED, licensesText.length)
+                    }
+                    licenses[key] = getBytesFromByteArray(
+                            licensesText,
                             startValue,
                             lengthValue)
-                    googleServiceLicenses.add(key)
-                    appendDependency(key, content)
                 }
             }
         }
+        return licenses
     }
 
     protected static byte[] getBytesFromInputStream(
@@ -209,7 +705,7 @@ abstract class LicensesTask extends DefaultTask {
             byte[] buffer = new byte[1024]
             ByteArrayOutputStream textArray = new ByteArrayOutputStream()
 
-            stream.skip(offset)
+            skipFully(stream, offset)
             int bytesRemaining = length > 0 ? length : Integer.MAX_VALUE
             int bytes = 0
 
@@ -231,38 +727,117 @@ abstract class LicensesTask extends DefaultTask {
         }
     }
 
-    protected void addLicensesFromPom(ArtifactInfo artifactInfo) {
-        def pomFile = DependencyUtil.resolvePomFileArtifact(getProject(), artifactInfo)
-        addLicensesFromPom((File) pomFile, artifactInfo.group, artifactInfo.name)
+    /**
+     * Skips exactly offset bytes. InputStream.skip may skip fewer bytes than
+     * requested, e.g. on inflating zip entry streams.
+     */
+    private static void skipFully(InputStream stream, long offset) {
+        long bytesRemaining = offset
+        while (bytesRemaining > 0) {
+            long skipped = stream.skip(bytesRemaining)
+            if (skipped <= 0) {
+                if (stream.read() == -1) {
+                    throw new EOFException("Offset $offset is past the end of the stream.")
+                }
+                skipped = 1
+            }
+            bytesRemaining -= skipped
+        }
+    }
+
+    /**
+     * Returns length bytes of text starting at offset, or the remainder of
+     * text if length is not positive. Mirrors
+     * {@link #getBytesFromInputStream(InputStream, long, int)} for license
+     * texts that were already read into memory.
+     */
+    protected static byte[] getBytesFromByteArray(
+            byte[] text,
+            int offset,
+            int length) {
+        if (offset < 0 || offset > text.length) {
+            throw new RuntimeException(
+                    FAIL_READING_LICENSES_ERROR,
+                    new EOFException("Offset $offset is past the end of the text."))
+        }
+        int end = length > 0 ? Math.min(text.length, offset + length) : text.length
+        return Arrays.copyOfRange(text, offset, end)
     }
 
     protected void addLicensesFromPom(File pomFile, String group, String name) {
+        appendPomLicenses(readLicensesFromPom(pomFile, group, name))
+    }
+
+    protected void appendArtifactLicenses(ArtifactLicenses licenses) {
+        appendPomLicenses(licenses.pomLicenses)
+        appendGooglePlayServiceLicenses(licenses.googlePlayServiceLicenses)
+    }
+
+    protected void appendPomLicenses(List<DependencyLicense> licenses) {
+        for (license in licenses) {
+            appendDependency(license.dependency, license.license)
+        }
+    }
+
+    /**
+     * Returns the licenses listed in the POM file of group:name, or an empty
+     * list if the POM file does not exist or has no licenses.
+     */
+    protected static List<DependencyLicense> readLicensesFromPom(
+            File pomFile,
+            String group,
+            String name) {
+        return toDependencyLicenses(readPomLicenses(pomFile, group, name) ?: [], group, name)
+    }
+
+    /**
+     * Returns the licenses listed in the POM file of group:name, an empty list
+     * if it has no licenses, or null if the POM file does not exist. A POM
+     * file without a licenses element inherits the licenses of its parent
+     * from parents if it is set, and null is returned if the POM file of its
+     * parent or of one of their parents is not known or cannot be read.
+     */
+    protected static List<PomLicense> readPomLicenses(
+            File pomFile,
+            String group,
+            String name,
+            ParentPomLicenses parents = null) {
         if (pomFile == null || !pomFile.exists()) {
             logger.error("POM file $pomFile for $group:$name does not exist.")
-            return
+            return null
         }
 
-        def rootNode = new XmlSlurper().parse(pomFile)
-        if (rootNode.licenses.size() == 0) {
-            return
+        PomLicenses pom = PomLicenseReader.readPom(pomFile, "${group}:${name}")
+        if (pom.licenses != null) {
+            return pom.licenses
+        }
+        if (pom.parent == null || parents == null) {
+            return []
+        }
+        List<PomLicense> inheritedLicenses = parents.inheritLicenses(pomFile, pom)
+        if (inheritedLicenses == null) {
+            logger.warn("Parent POM files of $group:$name are missing or unreadable, " +
+                    "the licenses it inherits from ${pom.parent} are not read.")
         }
+        return inheritedLicenses
+    }
 
-        String libraryName = rootNode.name
+    protected static List<DependencyLicense> toDependencyLicenses(
+            List<PomLicense> pomLicenses,
+            String group,
+            String name) {
         String licenseKey = "${group}:${name}"
-        if (libraryName == null || libraryName.isBlank()) {
-            libraryName = licenseKey
-        }
-        if (rootNode.licenses.license.size() > 1) {
-            rootNode.licenses.license.each { license ->
-                String licenseName = license.name
-                String licenseUrl = license.url
-                appendDependency(
-                        new Dependency("${licenseKey} ${licenseName}", libraryName),
-                        licenseUrl.getBytes(UTF_8))
+        if (pomLicenses.size() > 1) {
+            return pomLicenses.collect { license ->
+                new DependencyLicense(
+                        new Dependency("${licenseKey} ${license.licenseName}", license.libraryName),
+                        license.licenseUrl.getBytes(UTF_8))
             }
-        } else {
-            String nodeUrl = rootNode.licenses.license.url
-            appendDependency(new Dependency(licenseKey, libraryName), nodeUrl.getBytes(UTF_8))
+        }
+        return pomLicenses.collect { license ->
+            new DependencyLicense(
+                    new Dependency(licenseKey, license.libraryName),
+                    license.licenseUrl.getBytes(UTF_8))
         }
     }
 
@@ -271,32 +846,76 @@ abstract class LicensesTask extends DefaultTask {
     }
 
     protected void appendDependency(Dependency dependency, byte[] license) {
-        String licenseText = new String(license, UTF_8)
         if (licensesMap.containsKey(dependency.key)) {
             return
         }
 
-        String offsets
-        if (licenseOffsets.containsKey(licenseText)) {
-            offsets = licenseOffsets.get(licenseText)
-        } else {
+        String digest = digestLicense(license)
+        String offsets = licenseOffsets.get(digest)
+        if (offsets == null) {
             offsets = "${start}:${license.length}"
-            licenseOffsets.put(licenseText, offsets)
+            licenseOffsets.put(digest, offsets)
             appendLicenseContent(license)
             appendLicenseContent(LINE_SEPARATOR)
+            metrics.increment(LICENSES_WRITTEN)
+            metrics.increment(LICENSE_BYTES_WRITTEN, license.length)
+        } else {
+            metrics.increment(LICENSES_DEDUPLICATED)
         }
         licensesMap.put(dependency.key, dependency.buildLicensesMetadata(offsets))
     }
 
+    /**
+     * Returns the hex digest that license texts are deduplicated by.
+     */
+    protected String digestLicense(byte[] license) {
+        byte[] text = canonicalizeLicenses.getOrElse(false)
+                ? canonicalizeLicense(license)
+                : license
+        if (licenseDigest == null) {
+            licenseDigest = MessageDigest.getInstance(LICENSE_DIGEST_ALGORITHM)
+        }
+        return licenseDigest.digest(text).encodeHex().toString()
+    }
+
+    /**
+     * Returns license with each run of ASCII whitespace, including line
+     * endings, replaced by a single space, and without leading or trailing
+     * whitespace.
+     */
+    protected static byte[] canonicalizeLicense(byte[] license) {
+        ByteArrayOutputStream text = new ByteArrayOutputStream(license.length)
+        boolean whitespace = false
+        for (byte b : license) {
+            // Space, tab, line feed, vertical tab, form feed or carriage return.
+            if (b == SPACE || (b >= TAB && b <= CARRIAGE_RETURN)) {
+                whitespace = true
+            } else {
+                if (whitespace && text.size() > 0) {
+                    text.write(SPACE)
+                }
+                whitespace = false
+                text.write(b)
+            }
+        }
+        return text.toByteArray()
+    }
+
     protected void appendLicenseContent(byte[] content) {
-        licenses.append(content)
+        if (licensesOutput != null) {
+            licensesOutput.write(content)
+        } else {
+            licenses.append(content)
+        }
         start += content.length
     }
 
     protected void writeMetadata() {
-        for (entry in licensesMap) {
-            licensesMetadata.append(entry.value, UTF_8)
-            licensesMetadata.append(LINE_SEPARATOR)
+        licensesMetadata.withOutputStream { stream ->
+            for (entry in licensesMap) {
+                stream.write(entry.value.getBytes(UTF_8))
+                stream.write(LINE_SEPARATOR)
+            }
         }
     }
 
@@ -317,4 +936,59 @@ abstract class LicensesTask extends DefaultTask {
             return "$offset $name"
         }
     }
+
+    /**
+     * A license as listed in the POM file of a library.
+     */
+    protected static class PomLicense {
+        String libraryName
+        String licenseName
+        String licenseUrl
+
+        PomLicense(String libraryName, String licenseName, String licenseUrl) {
+            this.libraryName = libraryName
+            this.licenseName = licenseName
+            this.licenseUrl = licenseUrl
+        }
+
+        @Override
+        boolean equals(Object obj) {
+            if (obj instanceof PomLicense) {
+                return (libraryName == obj.libraryName
+                        && licenseName == obj.licenseName
+                        && licenseUrl == obj.licenseUrl)
+            }
+            return false
+        }
+
+        @Override
+        int hashCode() {
+            return Objects.hash(libraryName, licenseName, licenseUrl)
+        }
+    }
+
+    protected static class DependencyLicense {
+        Dependency dependency
+        byte[] license
+
+        DependencyLicense(Dependency dependency, byte[] license) {
+            this.dependency = dependency
+            this.license = license
+        }
+    }
+
+    /**
+     * The licenses read for one artifact, before duplicates are dropped.
+     */
+    protected static class ArtifactLicenses {
+        List<DependencyLicense> pomLicenses
+        Map<String, byte[]> googlePlayServiceLicenses
+
+        ArtifactLicenses(
+                List<DependencyLicense> pomLicenses,
+                Map<String, byte[]> googlePlayServiceLicenses) {
+            this.pomLicenses = pomLicenses
+            this.googlePlayServiceLicenses = googlePlayServiceLicenses
+        }
+    }
 }
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin
+
+/**
+ * Options of the plugin, configured with an ossLicenses { } block in the
+ * build.gradle of the app.
+ */
+class OssLicensesExtension {
+    /**
+     * Number of threads the {@link LicensesTask} uses to read licenses from
+     * POM files and AARs. Defaults to 1, which reads them on the task thread.
+     */
+    int parallelism = 1
+
+    /**
+     * Whether the licenses read from POM files are cached in the Gradle user
+     * home, so later builds only parse the POM files of new dependencies.
+     */
+    boolean cachePomLicenses = true
+
+    /**
+     * Whether the {@link LicensesTask} keeps the licenses it read for each
+     * artifact, so later runs only read the artifacts that were added or
+     * changed.
+     */
+    boolean incremental = true
+
+    /**
+     * Whether the dependencies read from the Android Gradle Plugin are also
+     * written to dependencies.json for debugging. The {@link LicensesTask}
+     * reads them from a binary {@link ArtifactManifest} either way.
+     */
+    boolean writeDependenciesJson = false
+
+    /**
+     * Whether license texts that only differ in whitespace and line endings
+     * are written to third_party_licenses once.
+     */
+    boolean canonicalizeLicenses = false
+
+    /**
+     * Whether the licenses are also written to a single indexed
+     * third_party_license_bundle resource, which can be read with the
+     * {@link LicenseBundleReader}.
+     */
+    boolean writeLicenseBundle = false
+
+    /**
+     * Whether each license text in the third_party_license_bundle is
+     * compressed with DEFLATE.
+     */
+    boolean compressLicenseBundle = false
+
+    /**
+     * Whether the tasks write the time spent in each phase and counters of
+     * the work they did to dependencies_metrics.json and licenses_metrics.json
+     * next to dependencies.json. They are also logged at info level either
+     * way.
+     */
+    boolean writeMetrics = false
+
+    /**
+     * {@link LicenseDatabase} the {@link LicensesTask} reads the licenses of
+     * artifacts from instead of resolving their POM files, for builds without
+     * network access. It is written by the OssLicenseDatabase task of each
+     * variant in a build with network access. Artifacts that are not in it
+     * are listed in unknown_artifacts.txt next to dependencies.json, and
+     * their POM files are still resolved.
+     */
+    File licenseDatabase = null
+}
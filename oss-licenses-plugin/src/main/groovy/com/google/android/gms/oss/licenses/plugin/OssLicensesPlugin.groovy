@@ -20,7 +20,6 @@ import com.android.build.api.artifact.SingleArtifact
 import com.android.build.gradle.api.BaseVariant
 import org.gradle.api.Plugin
 import org.gradle.api.Project
-import org.gradle.api.Task
 import org.slf4j.LoggerFactory
 
 class OssLicensesPlugin implements Plugin<Project> {
@@ -28,18 +27,41 @@ class OssLicensesPlugin implements Plugin<Project> {
     private static final logger = LoggerFactory.getLogger(DependencyTask.class)
 
     void apply(Project project) {
+        def extension = project.extensions.create("ossLicenses", OssLicensesExtension)
         def variantTolicenseTaskMap = new HashMap<String, LicensesTask>()
+        def pomLicenseCacheDir = new File(project.gradle.gradleUserHomeDir,
+                "caches/oss-licenses")
+        // Projects may load the plugin in different class loaders, which
+        // cannot share a service instance.
+        def licensesService = project.gradle.sharedServices.registerIfAbsent(
+                "ossLicensesService_${LicensesService.classLoader.hashCode()}",
+                LicensesService) {}
         project.androidComponents {
             onVariants(selector().all(), { variant ->
                 def baseDir = new File(project.buildDir,
                         "generated/third_party_licenses/${variant.name}")
                 def dependenciesJson = new File(baseDir, "dependencies.json")
+                def artifactManifest = new File(baseDir, "dependencies.bin")
+                def dependenciesMetrics = new File(baseDir, "dependencies_metrics.json")
+                def licensesMetrics = new File(baseDir, "licenses_metrics.json")
+                def licenseDatabaseFile = new File(baseDir, "license_database.json")
+                def unknownArtifactsReport = new File(baseDir, "unknown_artifacts.txt")
+                def libraryDependenciesReport = variant.artifacts.get(
+                        SingleArtifact.METADATA_LIBRARY_DEPENDENCIES_REPORT.INSTANCE)
+                def runtimeClasspath = project.configurations.named(
+                        "${variant.name}RuntimeClasspath")
 
                 def dependencyTask = project.tasks.register(
                         "${variant.name}OssDependencyTask",
                         DependencyTask.class) {
-                    it.dependenciesJson.set(dependenciesJson)
-                    it.libraryDependenciesReport.set(variant.artifacts.get(SingleArtifact.METADATA_LIBRARY_DEPENDENCIES_REPORT.INSTANCE))
+                    it.artifactManifest.set(artifactManifest)
+                    it.dependenciesJson.fileProvider(project.provider {
+                        extension.writeDependenciesJson ? dependenciesJson : null
+                    })
+                    it.libraryDependenciesReport.set(libraryDependenciesReport)
+                    it.metricsReport.fileProvider(project.provider {
+                        extension.writeMetrics ? dependenciesMetrics : null
+                    })
                 }.get()
                 logger.debug("Created task ${dependencyTask.name}")
 
@@ -48,27 +70,109 @@ class OssLicensesPlugin implements Plugin<Project> {
                 def licensesFile = new File(rawResourceDir, "third_party_licenses")
                 def licensesMetadataFile = new File(rawResourceDir,
                         "third_party_license_metadata")
+                def licenseBundleFile = new File(rawResourceDir,
+                        "third_party_license_bundle")
+                def licensesStateFile = new File(baseDir, "licenses_state.json")
 
                 def licenseTask = project.tasks.register(
                         "${variant.name}OssLicensesTask",
                         LicensesTask.class) {
-                    markNotCompatibleWithConfigurationCache(it)
-                    it.dependenciesJson.set(dependencyTask.dependenciesJson)
+                    it.artifactManifest.set(dependencyTask.artifactManifest)
+                    // Without the AGP dependency list only the debug license
+                    // is written, so the dependencies are not resolved. The
+                    // POM files of artifacts in the license database are not
+                    // resolved either. The POM license cache is machine-local,
+                    // so the POM files of cached artifacts are still inputs.
+                    it.pomFiles.set(project.provider {
+                        if (!libraryDependenciesReport.isPresent()) {
+                            return [:]
+                        }
+                        LicenseDatabase database = extension.licenseDatabase != null
+                                ? LicenseDatabase.read(extension.licenseDatabase)
+                                : null
+                        DependencyUtil.getPomFileIndex(
+                                project,
+                                runtimeClasspath.get(),
+                                licensesService.get().parentPomFiles,
+                                licensesService.get().parentPoms) {
+                            database == null || !database.contains(it)
+                        }
+                    })
+                    it.pomFiles.finalizeValueOnRead()
+                    it.libraryFiles.set(project.provider {
+                        libraryDependenciesReport.isPresent()
+                                ? DependencyUtil.getLibraryFileIndex(runtimeClasspath.get()) {
+                                    LicensesTask.isGoogleServices(it.group)
+                                }
+                                : [:]
+                    })
+                    it.libraryFiles.finalizeValueOnRead()
+                    it.licensesService.set(licensesService)
+                    it.licensesStateFile.fileProvider(project.provider {
+                        extension.incremental ? licensesStateFile : null
+                    })
+                    it.usesService(licensesService)
                     it.rawResourceDir = rawResourceDir
                     it.licenses = licensesFile
                     it.licensesMetadata = licensesMetadataFile
+                    it.parallelism.set(project.provider { extension.parallelism })
+                    it.canonicalizeLicenses.set(project.provider {
+                        extension.canonicalizeLicenses
+                    })
+                    it.pomLicenseCacheDir.fileProvider(project.provider {
+                        extension.cachePomLicenses ? pomLicenseCacheDir : null
+                    })
+                    it.licenseBundle.fileProvider(project.provider {
+                        extension.writeLicenseBundle ? licenseBundleFile : null
+                    })
+                    it.compressLicenseBundle.set(project.provider {
+                        extension.compressLicenseBundle
+                    })
+                    it.metricsReport.fileProvider(project.provider {
+                        extension.writeMetrics ? licensesMetrics : null
+                    })
+                    it.licenseDatabase.fileProvider(project.provider {
+                        extension.licenseDatabase
+                    })
+                    it.unknownArtifactsReport.fileProvider(project.provider {
+                        extension.licenseDatabase != null ? unknownArtifactsReport : null
+                    })
                 }.get()
                 logger.debug("Created task ${licenseTask.name}")
 
+                def licenseDatabaseTask = project.tasks.register(
+                        "${variant.name}OssLicenseDatabase",
+                        LicenseDatabaseTask.class) {
+                    it.artifactManifest.set(dependencyTask.artifactManifest)
+                    it.pomFiles.set(project.provider {
+                        libraryDependenciesReport.isPresent()
+                                ? DependencyUtil.getPomFileIndex(
+                                        project,
+                                        runtimeClasspath.get(),
+                                        licensesService.get().parentPomFiles,
+                                        licensesService.get().parentPoms)
+                                : [:]
+                    })
+                    it.pomFiles.finalizeValueOnRead()
+                    it.licenseDatabase.set(licenseDatabaseFile)
+                }.get()
+                logger.debug("Created task ${licenseDatabaseTask.name}")
+
                 variantTolicenseTaskMap[variant.name] = licenseTask
 
                 def cleanupTask = project.tasks.register(
                         "${variant.name}OssLicensesCleanUp",
                         LicensesCleanUpTask.class) {
                     it.dependenciesJson = dependenciesJson
+                    it.artifactManifest = artifactManifest
+                    it.metricsReports = [dependenciesMetrics, licensesMetrics]
                     it.dependencyDir = baseDir
                     it.licensesFile = licensesFile
                     it.metadataFile = licensesMetadataFile
+                    it.licenseBundleFile = licenseBundleFile
+                    it.licenseDatabaseFile = licenseDatabaseFile
+                    it.unknownArtifactsReport = unknownArtifactsReport
+                    it.licensesStateFile = licensesStateFile
                     it.licensesDir = rawResourceDir
                 }.get()
                 logger.debug("Created task ${cleanupTask.name}")
@@ -88,16 +192,4 @@ class OssLicensesPlugin implements Plugin<Project> {
             variant.registerGeneratedResFolders(generatedResFolder)
         }
     }
-
-    private static void markNotCompatibleWithConfigurationCache(Task it) {
-        // Configuration cache method incubating in Gradle 7.4
-        if (it.metaClass.respondsTo(it, "notCompatibleWithConfigurationCache", String)) {
-            it.notCompatibleWithConfigurationCache(
-                    "Requires Project instance to resolve POM files during " +
-                            " task execution, but depends on another Task to " +
-                            " create the artifact list. Without the list we " +
-                            " cannot enumerate POM files during configuration."
-            )
-        }
-    }
 }
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.PomLicense
+import com.google.android.gms.oss.licenses.plugin.PomLicenseReader.PomLicenses
+import groovy.transform.CompileStatic
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+/**
+ * Licenses that POM files without a licenses element inherit from their
+ * parent POM files, or from the parents of those.
+ *
+ * Each POM file is read once and kept in a map that can be shared with other
+ * tasks, since many artifacts share a few parents.
+ */
+@CompileStatic
+class ParentPomLicenses {
+    /**
+     * Number of parents followed before giving up, which also ends cycles.
+     */
+    protected static final int MAX_DEPTH = 16
+
+    private static final Logger logger = LoggerFactory.getLogger(ParentPomLicenses.class)
+
+    private final Map<String, File> pomFiles
+    private final Map<File, PomLicenses> poms
+
+    /**
+     * @param pomFiles POM files of the parents keyed by group:name:version
+     * @param poms map the POM file read from each file is kept in
+     */
+    ParentPomLicenses(Map<String, File> pomFiles, Map<File, PomLicenses> poms) {
+        this.pomFiles = pomFiles
+        this.poms = poms
+    }
+
+    /**
+     * Returns the licenses that pom, read from pomFile, inherits, named after
+     * its library. See {@link #getLicenses}.
+     */
+    List<PomLicense> inheritLicenses(File pomFile, PomLicenses pom) {
+        poms.putIfAbsent(pomFile, pom)
+        return getLicenses(pom.parent, pom.libraryName)
+    }
+
+    /**
+     * Returns the licenses parent declares or inherits, named libraryName.
+     * Returns an empty list if neither it nor its parents have any, or if
+     * more than {@link #MAX_DEPTH} parents would have to be followed. Returns
+     * null if the POM file of parent or of one of its parents is not known
+     * or cannot be read, since the licenses it would have inherited cannot be
+     * told apart from none.
+     */
+    List<PomLicense> getLicenses(ArtifactInfo parent, String libraryName) {
+        ArtifactInfo next = parent
+        for (int depth = 0; depth < MAX_DEPTH && next != null; depth++) {
+            PomLicenses pom = readPom(next)
+            if (pom == null) {
+                return null
+            }
+            if (pom.licenses != null) {
+                return pom.licenses.collect { PomLicense license ->
+                    new PomLicense(libraryName, license.licenseName, license.licenseUrl)
+                }
+            }
+            next = pom.parent
+        }
+        return []
+    }
+
+    /**
+     * Returns the parents whose POM files were read for the licenses that
+     * the POM file pomFile inherits, nearest first. Empty if its licenses
+     * were not inherited through {@link #inheritLicenses}.
+     */
+    List<ArtifactInfo> getParents(File pomFile) {
+        List<ArtifactInfo> parents = []
+        PomLicenses pom = poms.get(pomFile)
+        while (pom != null && pom.licenses == null && pom.parent != null
+                && parents.size() < MAX_DEPTH) {
+            parents.add(pom.parent)
+            File parentPomFile = pomFiles.get(pom.parent.toString())
+            pom = parentPomFile != null ? poms.get(parentPomFile) : null
+        }
+        return parents
+    }
+
+    /**
+     * Returns the POM file of parent, or null if it is not known.
+     */
+    File getPomFile(ArtifactInfo parent) {
+        return pomFiles.get(parent.toString())
+    }
+
+    private PomLicenses readPom(ArtifactInfo artifactInfo) {
+        File pomFile = pomFiles.get(artifactInfo.toString())
+        if (pomFile == null) {
+            return null
+        }
+        PomLicenses pom = poms.get(pomFile)
+        if (pom == null) {
+            try {
+                pom = PomLicenseReader.readPom(pomFile, artifactInfo.toString())
+            } catch (IOException e) {
+                logger.warn("Failed to read the parent POM file $pomFile of $artifactInfo.", e)
+                return null
+            }
+            poms.putIfAbsent(pomFile, pom)
+        }
+        return pom
+    }
+}
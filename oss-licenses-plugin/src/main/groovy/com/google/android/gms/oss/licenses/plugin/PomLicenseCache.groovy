@@ -0,0 +1,156 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.PomLicense
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+import org.slf4j.LoggerFactory
+
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+
+/**
+ * Cache of the licenses listed in POM files, keyed by group:name:version and
+ * persisted between builds. The POM of a released version does not change,
+ * so its licenses only have to be parsed once.
+ *
+ * The cache is only read while a task runs, and only saves parsing POM
+ * files that the task has as inputs anyway. Other builds may drop entries at
+ * any time, so a missing entry only means that the POM file is parsed.
+ *
+ * The cache keeps the most recently used {@link #MAX_ENTRIES} artifacts.
+ * Its file name and content carry {@link #FORMAT_VERSION}, files of other
+ * versions are ignored.
+ */
+class PomLicenseCache {
+    protected static final int FORMAT_VERSION = 2
+    protected static final int MAX_ENTRIES = 20000
+    private static final String SNAPSHOT_SUFFIX = "-SNAPSHOT"
+
+    private static final logger = LoggerFactory.getLogger(PomLicenseCache.class)
+
+    private final File cacheFile
+    private final int maxEntries
+    private final Map<String, List<PomLicense>> entries
+    private final Set<String> addedKeys = []
+
+    private PomLicenseCache(File cacheFile, int maxEntries) {
+        this.cacheFile = cacheFile
+        this.maxEntries = maxEntries
+        // Access ordered, so iteration starts at the least recently used entry.
+        this.entries = new LinkedHashMap<String, List<PomLicense>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<PomLicense>> eldest) {
+                return size() > maxEntries
+            }
+        }
+    }
+
+    static PomLicenseCache load(File cacheDir) {
+        return load(cacheDir, MAX_ENTRIES)
+    }
+
+    protected static PomLicenseCache load(File cacheDir, int maxEntries) {
+        def cache = new PomLicenseCache(
+                new File(cacheDir, "pom-licenses-v${FORMAT_VERSION}.json"), maxEntries)
+        cache.entries.putAll(readEntries(cache.cacheFile))
+        return cache
+    }
+
+    /**
+     * Returns the cached licenses of artifactInfo, or null if there are none.
+     */
+    synchronized List<PomLicense> get(ArtifactInfo artifactInfo) {
+        return entries.get(artifactInfo.toString())
+    }
+
+    synchronized void put(ArtifactInfo artifactInfo, List<PomLicense> licenses) {
+        if (artifactInfo.version.endsWith(SNAPSHOT_SUFFIX)) {
+            return
+        }
+        String key = artifactInfo.toString()
+        entries.put(key, licenses.asImmutable())
+        addedKeys.add(key)
+    }
+
+    /**
+     * Writes the cache file if entries were added since it was loaded or last
+     * saved. Entries that other builds added in the meantime are kept.
+     */
+    synchronized void save() {
+        if (addedKeys.isEmpty()) {
+            return
+        }
+        Map<String, List<PomLicense>> merged = readEntries(cacheFile)
+        merged.keySet().removeAll(entries.keySet())
+        // Least recently used first, so the newest entries survive the bound.
+        merged.putAll(entries)
+        List<String> keys = merged.keySet().toList()
+        keys = keys.subList(Math.max(0, keys.size() - maxEntries), keys.size())
+
+        def json = [
+                formatVersion: FORMAT_VERSION,
+                entries      : keys.collect { key ->
+                    [
+                            artifact: key,
+                            licenses: merged[key].collect { license ->
+                                [
+                                        libraryName: license.libraryName,
+                                        licenseName: license.licenseName,
+                                        licenseUrl : license.licenseUrl
+                                ]
+                            }
+                    ]
+                }
+        ]
+        try {
+            cacheFile.parentFile.mkdirs()
+            File tempFile = File.createTempFile(cacheFile.name, ".tmp", cacheFile.parentFile)
+            tempFile.setText(JsonOutput.toJson(json), "UTF-8")
+            Files.move(tempFile.toPath(), cacheFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+            logger.info("Saved ${keys.size()} POM licenses to $cacheFile, ${addedKeys.size()} new.")
+            addedKeys.clear()
+        } catch (IOException e) {
+            logger.warn("Failed to save POM license cache $cacheFile", e)
+        }
+    }
+
+    private static Map<String, List<PomLicense>> readEntries(File cacheFile) {
+        Map<String, List<PomLicense>> entries = [:]
+        if (!cacheFile.exists()) {
+            return entries
+        }
+        try {
+            def json = new JsonSlurper().parse(cacheFile, "UTF-8")
+            if (json.formatVersion != FORMAT_VERSION) {
+                logger.info("Ignoring POM license cache $cacheFile of version ${json.formatVersion}")
+                return entries
+            }
+            for (entry in json.entries) {
+                entries[(String) entry.artifact] = entry.licenses.collect { license ->
+                    new PomLicense(license.libraryName, license.licenseName, license.licenseUrl)
+                }.asImmutable()
+            }
+        } catch (Exception e) {
+            logger.warn("Ignoring unreadable POM license cache $cacheFile", e)
+            entries.clear()
+        }
+        return entries
+    }
+}
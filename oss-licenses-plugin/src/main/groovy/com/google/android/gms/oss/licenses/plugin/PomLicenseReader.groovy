@@ -0,0 +1,241 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.PomLicense
+import groovy.transform.CompileStatic
+
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLResolver
+import javax.xml.stream.XMLStreamException
+import javax.xml.stream.XMLStreamReader
+import java.util.function.Supplier
+
+import static javax.xml.stream.XMLStreamConstants.CDATA
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT
+import static javax.xml.stream.XMLStreamConstants.SPACE
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT
+
+/**
+ * Reads the name and licenses of a library from its POM file without building
+ * a tree of the whole file. Only the project's name element, the name and url
+ * elements of its licenses and the coordinates of its parent are read, and
+ * reading stops once both the name and the licenses were read.
+ *
+ * Elements are matched by local name, so POM files with and without the Maven
+ * namespace are read alike. Entities declared in the document are replaced,
+ * but external DTDs and entities are never loaded, so references to entities
+ * declared in them are dropped. The text of an element is read like
+ * XmlSlurper does: text between two tags that is only whitespace is dropped.
+ */
+@CompileStatic
+class PomLicenseReader {
+    private static final String NAME = "name"
+    private static final String LICENSES = "licenses"
+    private static final String LICENSE = "license"
+    private static final String URL = "url"
+    private static final String PARENT = "parent"
+    private static final List<String> PARENT_COORDINATES = ["groupId", "artifactId", "version"]
+    private static final int PROJECT_CHILD_DEPTH = 2
+    private static final int LICENSE_DEPTH = 3
+    private static final int LICENSE_CHILD_DEPTH = 4
+
+    private static final ThreadLocal<XMLInputFactory> INPUT_FACTORY = ThreadLocal.withInitial({
+        XMLInputFactory factory = XMLInputFactory.newFactory()
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, true)
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false)
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true)
+        // Reads external DTDs as empty instead of loading them.
+        factory.setXMLResolver({ String publicId, String systemId, String baseUri, String namespace ->
+            new ByteArrayInputStream(new byte[0])
+        } as XMLResolver)
+        return factory
+    } as Supplier<XMLInputFactory>)
+
+    /**
+     * Licenses and parent read from a POM file.
+     */
+    static class PomLicenses {
+        /**
+         * The project's name, or the default library name if it has none.
+         */
+        final String libraryName
+        /**
+         * The licenses, or null if the POM file has no licenses element.
+         */
+        final List<PomLicense> licenses
+        /**
+         * The parent POM, or null if there is none. Only read if licenses is
+         * null, since licenses are only inherited by POM files without them.
+         */
+        final ArtifactInfo parent
+
+        PomLicenses(String libraryName, List<PomLicense> licenses, ArtifactInfo parent) {
+            this.libraryName = libraryName
+            this.licenses = licenses
+            this.parent = parent
+        }
+    }
+
+    /**
+     * Returns the name, licenses and parent of pomFile. The licenses are
+     * named after the project's name, or defaultLibraryName if it has none.
+     */
+    static PomLicenses readPom(File pomFile, String defaultLibraryName) throws IOException {
+        return new BufferedInputStream(new FileInputStream(pomFile)).withCloseable { InputStream input ->
+            XMLStreamReader reader = null
+            try {
+                reader = INPUT_FACTORY.get().createXMLStreamReader(input)
+                return readLicenses(reader, defaultLibraryName)
+            } catch (XMLStreamException e) {
+                throw new IOException("Failed to read the licenses of $pomFile.", e)
+            } finally {
+                reader?.close()
+            }
+        }
+    }
+
+    private static PomLicenses readLicenses(
+            XMLStreamReader reader,
+            String defaultLibraryName) {
+        StringBuilder libraryName = null
+        // The name and url of each license, null until a licenses element is read.
+        List<StringBuilder[]> licenses = null
+        StringBuilder[] license = null
+        boolean inLicenses = false
+        // The group, name and version of the parent, null until a parent element is read.
+        StringBuilder[] parent = null
+        boolean inParent = false
+        // The text of the element being read and its depth.
+        StringBuilder text = null
+        int textDepth = 0
+        StringBuilder chunk = new StringBuilder()
+        int depth = 0
+
+        while (reader.hasNext()) {
+            int event = reader.next()
+            if (event == CHARACTERS || event == CDATA || event == SPACE) {
+                if (text != null) {
+                    chunk.append(reader.textCharacters, reader.textStart, reader.textLength)
+                }
+            } else if (event == START_ELEMENT) {
+                appendChunk(chunk, text)
+                depth++
+                if (text != null) {
+                    continue
+                }
+                String localName = reader.localName
+                if (depth == PROJECT_CHILD_DEPTH && localName == NAME) {
+                    libraryName = libraryName ?: new StringBuilder()
+                    text = libraryName
+                    textDepth = depth
+                } else if (depth == PROJECT_CHILD_DEPTH && localName == LICENSES) {
+                    inLicenses = true
+                    licenses = licenses ?: new ArrayList<StringBuilder[]>()
+                } else if (depth == PROJECT_CHILD_DEPTH && localName == PARENT) {
+                    inParent = true
+                    parent = parent ?: ([new StringBuilder(), new StringBuilder(), new StringBuilder()]
+                            as StringBuilder[])
+                } else if (depth == PROJECT_CHILD_DEPTH + 1 && inParent
+                        && PARENT_COORDINATES.contains(localName)) {
+                    text = parent[PARENT_COORDINATES.indexOf(localName)]
+                    textDepth = depth
+                } else if (depth == LICENSE_DEPTH && inLicenses && localName == LICENSE) {
+                    license = [new StringBuilder(), new StringBuilder()] as StringBuilder[]
+                    licenses.add(license)
+                } else if (depth == LICENSE_CHILD_DEPTH && license != null) {
+                    if (localName == NAME) {
+                        text = license[0]
+                        textDepth = depth
+                    } else if (localName == URL) {
+                        text = license[1]
+                        textDepth = depth
+                    }
+                }
+            } else if (event == END_ELEMENT) {
+                appendChunk(chunk, text)
+                if (text != null) {
+                    if (depth == textDepth) {
+                        text = null
+                    }
+                } else if (depth == LICENSE_DEPTH) {
+                    license = null
+                } else if (depth == PROJECT_CHILD_DEPTH && inLicenses) {
+                    inLicenses = false
+                    if (libraryName != null) {
+                        break
+                    }
+                } else if (depth == PROJECT_CHILD_DEPTH && inParent) {
+                    inParent = false
+                }
+                depth--
+            }
+        }
+
+        String name = libraryName?.toString()
+        if (name == null || name.isBlank()) {
+            name = defaultLibraryName
+        }
+        if (licenses == null) {
+            return new PomLicenses(name, null, toArtifactInfo(parent))
+        }
+        if (licenses.isEmpty()) {
+            // A licenses element without licenses has always been read as
+            // one license without a name or url.
+            return new PomLicenses(name, [new PomLicense(name, "", "")], null)
+        }
+        return new PomLicenses(name, licenses.collect { StringBuilder[] nameAndUrl ->
+            new PomLicense(name, nameAndUrl[0].toString(), nameAndUrl[1].toString())
+        }, null)
+    }
+
+    /**
+     * Returns the artifact of the parent coordinates, or null if any of them
+     * is missing.
+     */
+    private static ArtifactInfo toArtifactInfo(StringBuilder[] coordinates) {
+        if (coordinates == null) {
+            return null
+        }
+        for (StringBuilder coordinate : coordinates) {
+            if (coordinate.toString().isBlank()) {
+                return null
+            }
+        }
+        return new ArtifactInfo(
+                coordinates[0].toString().trim(),
+                coordinates[1].toString().trim(),
+                coordinates[2].toString().trim())
+    }
+
+    /**
+     * Appends chunk to text unless it is only whitespace, and clears it.
+     */
+    private static void appendChunk(StringBuilder chunk, StringBuilder text) {
+        if (text != null) {
+            for (int i = 0; i < chunk.length(); i++) {
+                // Whitespace as String.trim() sees it.
+                if (chunk.charAt(i) > (' ' as char)) {
+                    text.append(chunk)
+                    break
+                }
+            }
+        }
+        chunk.setLength(0)
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin
+
+import groovy.json.JsonOutput
+import groovy.transform.CompileStatic
+import org.slf4j.Logger
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Wall-clock time spent in the phases of a task, and counters of the work it
+ * did. Safe to update from several threads.
+ *
+ * Phases that run on several threads at once, such as reading licenses in
+ * parallel, add up the time of each thread.
+ */
+@CompileStatic
+class TaskMetrics {
+    protected static final int FORMAT_VERSION = 1
+
+    private final Map<String, AtomicLong> phaseNanos = new ConcurrentHashMap<>()
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>()
+
+    /**
+     * Runs body and adds the time it took to phase.
+     */
+    public <T> T time(String phase, Callable<T> body) {
+        long start = System.nanoTime()
+        try {
+            return body.call()
+        } finally {
+            add(phaseNanos, phase, System.nanoTime() - start)
+        }
+    }
+
+    void increment(String counter, long delta = 1) {
+        add(counters, counter, delta)
+    }
+
+    long getCount(String counter) {
+        return counters.get(counter)?.get() ?: 0L
+    }
+
+    long getPhaseNanos(String phase) {
+        return phaseNanos.get(phase)?.get() ?: 0L
+    }
+
+    /**
+     * Logs the time of each phase and the counters at info level.
+     */
+    void log(Logger logger, String taskPath) {
+        if (!logger.isInfoEnabled()) {
+            return
+        }
+        new TreeMap<>(phaseNanos).each { phase, nanos ->
+            logger.info("$taskPath: $phase took ${toMillis(nanos.get())} ms")
+        }
+        new TreeMap<>(counters).each { counter, count ->
+            logger.info("$taskPath: $counter = ${count.get()}")
+        }
+    }
+
+    /**
+     * Writes the metrics to reportFile as JSON, with the phases and counters
+     * sorted by name.
+     */
+    void write(String taskPath, File reportFile) {
+        Map<String, Double> phaseMillis = new TreeMap<>()
+        phaseNanos.each { phase, nanos -> phaseMillis[phase] = toMillis(nanos.get()) }
+        Map<String, Long> counts = new TreeMap<>()
+        counters.each { counter, count -> counts[counter] = count.get() }
+        reportFile.parentFile?.mkdirs()
+        reportFile.setText(JsonOutput.toJson([
+                formatVersion: FORMAT_VERSION,
+                task         : taskPath,
+                phaseMillis  : phaseMillis,
+                counters     : counts
+        ]), "UTF-8")
+    }
+
+    private static void add(Map<String, AtomicLong> values, String key, long delta) {
+        values.computeIfAbsent(key) { new AtomicLong() }.addAndGet(delta)
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1000d) / 1000d
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the third_party_license_bundle resource written by the
+ * {@link LicensesTask} when ossLicenses { writeLicenseBundle = true } is set.
+ * Only depends on the JDK, so that apps can copy it.
+ *
+ * <p>The bundle is big-endian and consists of:
+ * <ul>
+ *   <li>a header: {@link #MAGIC}, {@link #FORMAT_VERSION} and flags as one
+ *   byte each, the number of entries, and the offset of the license bodies,
+ *   padded to {@link #HEADER_SIZE} bytes,</li>
+ *   <li>an index of {@link #INDEX_ENTRY_SIZE} byte entries sorted by name:
+ *   the offset and length of the name, the offset and stored length of the
+ *   license body, and the length of the license text,</li>
+ *   <li>the UTF-8 names,</li>
+ *   <li>the license bodies, each compressed on its own with DEFLATE if
+ *   {@link #FLAG_DEFLATE} is set. Entries with the same text share a body.</li>
+ * </ul>
+ */
+public final class LicenseBundleReader {
+  static final int MAGIC = 0x4F534C42; // "OSLB"
+  static final int FORMAT_VERSION = 1;
+  static final int FLAG_DEFLATE = 1;
+  static final int HEADER_SIZE = 16;
+  static final int INDEX_ENTRY_SIZE = 20;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final ByteBuffer bundle;
+  private final boolean deflated;
+  private final int size;
+  private final int namesOffset;
+  private final int bodiesOffset;
+
+  /**
+   * Reads the bundle from the remaining bytes of buffer, which must not be
+   * modified afterwards.
+   */
+  public LicenseBundleReader(ByteBuffer buffer) {
+    bundle = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+    if (bundle.remaining() < HEADER_SIZE
+        || bundle.getInt(0) != MAGIC
+        || bundle.get(4) != FORMAT_VERSION) {
+      throw new IllegalArgumentException("Not a license bundle of version " + FORMAT_VERSION);
+    }
+    deflated = (bundle.get(5) & FLAG_DEFLATE) != 0;
+    size = bundle.getInt(6);
+    bodiesOffset = bundle.getInt(10);
+    namesOffset = HEADER_SIZE + size * INDEX_ENTRY_SIZE;
+  }
+
+  public LicenseBundleReader(byte[] bundle) {
+    this(ByteBuffer.wrap(bundle));
+  }
+
+  /** Returns the number of entries. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns the name of the entry at index, in name order. */
+  public String getName(int index) {
+    int entry = indexEntry(index);
+    byte[] name = new byte[bundle.getInt(entry + 4)];
+    get(namesOffset + bundle.getInt(entry), name);
+    return new String(name, UTF_8);
+  }
+
+  /**
+   * Returns the index of the first entry named name, or -1 if there is none.
+   * Only reads the names of O(log n) entries.
+   */
+  public int indexOf(String name) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (getName(middle).compareTo(name) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low < size && getName(low).equals(name) ? low : -1;
+  }
+
+  /** Returns the license text of the entry at index. */
+  public byte[] getLicense(int index) {
+    int entry = indexEntry(index);
+    byte[] body = new byte[bundle.getInt(entry + 12)];
+    get(bodiesOffset + bundle.getInt(entry + 8), body);
+    if (!deflated) {
+      return body;
+    }
+
+    byte[] license = new byte[bundle.getInt(entry + 16)];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(body);
+      int length = 0;
+      while (length < license.length && !inflater.finished()) {
+        int inflated = inflater.inflate(license, length, license.length - length);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        length += inflated;
+      }
+      if (length != license.length) {
+        throw new IllegalStateException("Truncated license body of entry " + index);
+      }
+      return license;
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupt license body of entry " + index, e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /** Returns the license text of the entry at index as a String. */
+  public String getLicenseText(int index) {
+    return new String(getLicense(index), UTF_8);
+  }
+
+  private int indexEntry(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+    }
+    return HEADER_SIZE + index * INDEX_ENTRY_SIZE;
+  }
+
+  private void get(int offset, byte[] destination) {
+    ByteBuffer source = bundle.duplicate();
+    source.position(offset);
+    source.get(destination);
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ArtifactManifest} */
+@RunWith(JUnit4.class)
+public class ArtifactManifestTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void write_read_returnsArtifactsInOrder() throws Exception {
+    List<ArtifactInfo> artifactInfos = ImmutableList.of(
+        new ArtifactInfo("com.google.android.gms", "play-services-base", "18.0.1"),
+        new ArtifactInfo("org.group.id", "artifactId", "1.0.0-ünïcödé"),
+        DependencyUtil.ABSENT_ARTIFACT);
+    File manifestFile = temporaryFolder.newFile();
+
+    ArtifactManifest.write(artifactInfos, manifestFile);
+
+    assertThat(ArtifactManifest.read(manifestFile))
+        .containsExactlyElementsIn(artifactInfos).inOrder();
+  }
+
+  @Test
+  public void write_read_empty() throws Exception {
+    File manifestFile = temporaryFolder.newFile();
+
+    ArtifactManifest.write(ImmutableList.of(), manifestFile);
+
+    assertThat(ArtifactManifest.read(manifestFile)).isEmpty();
+  }
+
+  @Test
+  public void read_otherFile_throwsException() throws Exception {
+    File jsonFile = temporaryFolder.newFile();
+    Files.write(jsonFile.toPath(), "[{\"group\":\"groupA\"}]".getBytes(StandardCharsets.UTF_8));
+
+    try {
+      ArtifactManifest.read(jsonFile);
+      fail("This test should throw Exception.");
+    } catch (IOException e) {
+      assertThat(e.getMessage()).contains("is not an artifact manifest");
+    }
+  }
+}
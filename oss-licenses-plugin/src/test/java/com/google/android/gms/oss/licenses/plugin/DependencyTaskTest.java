@@ -28,6 +28,8 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Collection;
 import org.gradle.api.Project;
 import org.gradle.testfixtures.ProjectBuilder;
@@ -116,6 +118,91 @@ public class DependencyTaskTest {
     verifyExpectedDependencies(expectedArtifacts, outputJson);
   }
 
+  @Test
+  public void testAction_writesSortedCompactJson() throws Exception {
+    File outputJson = new File(temporaryFolder.newFolder(), "test.json");
+    dependencyTask.getDependenciesJson().set(outputJson);
+    AppDependencies appDependencies = createAppDependencies(ImmutableSet.of(
+        new ArtifactInfo("org.group.other", "other-artifact", "3.2.1"),
+        new ArtifactInfo("org.group.id", "artifactId", "2.0.0"),
+        new ArtifactInfo("org.group.id", "artifactId", "1.0.0"),
+        new ArtifactInfo("org.group.id", "another-artifact", "1.0.0")
+    ));
+    File protoFile = writeAppDependencies(appDependencies, temporaryFolder.newFile());
+    dependencyTask.getLibraryDependenciesReport().set(protoFile);
+
+    dependencyTask.action();
+
+    assertThat(new String(Files.readAllBytes(outputJson.toPath()), StandardCharsets.UTF_8))
+        .isEqualTo("["
+            + "{\"group\":\"org.group.id\",\"name\":\"another-artifact\",\"version\":\"1.0.0\"},"
+            + "{\"group\":\"org.group.id\",\"name\":\"artifactId\",\"version\":\"1.0.0\"},"
+            + "{\"group\":\"org.group.id\",\"name\":\"artifactId\",\"version\":\"2.0.0\"},"
+            + "{\"group\":\"org.group.other\",\"name\":\"other-artifact\",\"version\":\"3.2.1\"}"
+            + "]");
+  }
+
+  @Test
+  public void testAction_withOtherFields_otherFieldsSkipped() throws Exception {
+    File outputJson = new File(temporaryFolder.newFolder(), "test.json");
+    dependencyTask.getDependenciesJson().set(outputJson);
+    ImmutableSet<ArtifactInfo> expectedArtifacts = ImmutableSet.of(
+        new ArtifactInfo("org.group.id", "artifactId", "1.0.0"),
+        new ArtifactInfo("org.group.other", "other-artifact", "3.2.1")
+    );
+    File protoFile = writeAppDependencies(
+        createAppDependencies(expectedArtifacts), temporaryFolder.newFile());
+    try (OutputStream outputStream = new FileOutputStream(protoFile, true)) {
+      // A length-delimited field 2 and a varint field 15, as in the
+      // dependency graph of a real report.
+      outputStream.write(new byte[] {0x12, 0x02, 0x08, 0x00, 0x78, 0x01});
+    }
+    dependencyTask.getLibraryDependenciesReport().set(protoFile);
+
+    dependencyTask.action();
+
+    verifyExpectedDependencies(expectedArtifacts, outputJson);
+  }
+
+  @Test
+  public void testAction_writesSortedArtifactManifest() throws Exception {
+    File outputDir = temporaryFolder.newFolder();
+    File manifestFile = new File(outputDir, "dependencies.bin");
+    dependencyTask.getArtifactManifest().set(manifestFile);
+    ArtifactInfo first = new ArtifactInfo("org.group.id", "artifactId", "1.0.0");
+    ArtifactInfo second = new ArtifactInfo("org.group.other", "other-artifact", "3.2.1");
+    AppDependencies appDependencies = createAppDependencies(ImmutableSet.of(second, first));
+    File protoFile = writeAppDependencies(appDependencies, temporaryFolder.newFile());
+    dependencyTask.getLibraryDependenciesReport().set(protoFile);
+
+    dependencyTask.action();
+
+    assertThat(ArtifactManifest.read(manifestFile)).containsExactly(first, second).inOrder();
+    assertThat(new File(outputDir, "test.json").exists()).isFalse();
+  }
+
+  @Test
+  public void testAction_withMetricsReport_writesReport() throws Exception {
+    File metricsReport = new File(temporaryFolder.newFolder(), "dependencies_metrics.json");
+    dependencyTask.getArtifactManifest()
+        .set(new File(temporaryFolder.newFolder(), "dependencies.bin"));
+    dependencyTask.getMetricsReport().set(metricsReport);
+    AppDependencies appDependencies = createAppDependencies(ImmutableSet.of(
+        new ArtifactInfo("org.group.id", "artifactId", "1.0.0"),
+        new ArtifactInfo("org.group.other", "other-artifact", "3.2.1")));
+    File protoFile = writeAppDependencies(appDependencies, temporaryFolder.newFile());
+    dependencyTask.getLibraryDependenciesReport().set(protoFile);
+
+    dependencyTask.action();
+
+    assertThat(dependencyTask.metrics.getCount(DependencyTask.ARTIFACTS)).isEqualTo(2L);
+    assertThat(dependencyTask.metrics.getCount(DependencyTask.DEPENDENCIES_REPORT_BYTES))
+        .isEqualTo(protoFile.length());
+    String report = new String(Files.readAllBytes(metricsReport.toPath()), StandardCharsets.UTF_8);
+    assertThat(report.contains("\"" + DependencyTask.PHASE_WRITE_MANIFEST + "\"")).isTrue();
+    assertThat(report.contains(DependencyTask.PHASE_WRITE_DEPENDENCIES_JSON)).isFalse();
+  }
+
   @Test
   public void testAction_depFileAbsent_writesAbsentDep() throws Exception {
     File outputDir = temporaryFolder.newFolder();
@@ -2,26 +2,21 @@ package com.google.android.gms.oss.licenses.plugin;
 
 
 import static com.google.common.truth.Truth.assertThat;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
+import com.google.android.gms.oss.licenses.plugin.PomLicenseReader.PomLicenses;
 import com.google.common.collect.ImmutableSet;
 import java.io.File;
-import java.util.HashSet;
-import java.util.Set;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
-import org.gradle.api.artifacts.Configuration.State;
-import org.gradle.api.artifacts.ConfigurationContainer;
-import org.gradle.api.artifacts.LenientConfiguration;
-import org.gradle.api.artifacts.ModuleVersionIdentifier;
-import org.gradle.api.artifacts.ResolvedArtifact;
-import org.gradle.api.artifacts.ResolvedConfiguration;
-import org.gradle.api.artifacts.ResolvedDependency;
-import org.gradle.api.artifacts.ResolvedModuleVersion;
+import org.gradle.testfixtures.ProjectBuilder;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -35,356 +30,205 @@ public class DependencyUtilTest {
   public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
   @Test
-  public void getLibraryFile_returnsLibraryFile() throws Exception {
-    ArtifactInfo artifactInfo = new ArtifactInfo("com.google.android.gms.test", "test", "1.0.0");
-    File expectedFile = temporaryFolder.newFile();
-    ResolvedArtifact resolvedArtifact = mockResolvedArtifact(artifactInfo, expectedFile);
-    Configuration compileConfiguration = mockConfiguration(
-        "compile",
-        /* canBeResolved = */ true,
-        State.RESOLVED,
-        mockSingleDependencySet(resolvedArtifact));
-    Project project = mockProjectWithConfiguration(compileConfiguration);
-
-    File libraryFile = DependencyUtil.getLibraryFile(project, artifactInfo);
-
-    assertThat(libraryFile).isEqualTo(expectedFile);
-  }
-
-  @Test
-  public void getLibraryFile_noVersionMatch_returnsNull() throws Exception {
-    ArtifactInfo artifactInfo = new ArtifactInfo("com.google.android.gms.test", "test", "1.0.0");
-    File expectedFile = temporaryFolder.newFile();
-    ResolvedArtifact resolvedArtifact = mockResolvedArtifact(artifactInfo, expectedFile);
-    Configuration compileConfiguration = mockConfiguration(
-        "compile",
-        /* canBeResolved = */ true,
-        State.RESOLVED,
-        mockSingleDependencySet(resolvedArtifact));
-    Project project = mockProjectWithConfiguration(compileConfiguration);
-    ArtifactInfo differentVersionInfo = new ArtifactInfo("com.google.android.gms.test", "test",
-        "2.0.0");
-
-    File libraryFile = DependencyUtil.getLibraryFile(project, differentVersionInfo);
-
-    assertThat(libraryFile).isNull();
-  }
-
-  @Test
-  public void getLibraryFile_noMatch_returnsNull() throws Exception {
-    ArtifactInfo artifactInfo = new ArtifactInfo("com.google.android.gms.test", "test", "1.0.0");
-    File expectedFile = temporaryFolder.newFile();
-    ResolvedArtifact resolvedArtifact = mockResolvedArtifact(artifactInfo, expectedFile);
-    Configuration compileConfiguration = mockConfiguration(
-        "compile",
-        /* canBeResolved = */ true,
-        State.RESOLVED,
-        mockSingleDependencySet(resolvedArtifact));
-    Project project = mockProjectWithConfiguration(compileConfiguration);
-    ArtifactInfo missingArtifactInfo = new ArtifactInfo("com.uhoh.example", "whoops", "1.0.0");
-
-    File libraryFile = DependencyUtil.getLibraryFile(project, missingArtifactInfo);
-
-    assertThat(libraryFile).isNull();
-  }
-
-  @Test
-  public void getLibraryFile_unresolvedConfiguration_returnsNull() throws Exception {
-    ArtifactInfo artifactInfo = new ArtifactInfo("com.google.android.gms.test", "test", "1.0.0");
-    File expectedFile = temporaryFolder.newFile();
-    ResolvedArtifact resolvedArtifact = mockResolvedArtifact(artifactInfo, expectedFile);
-    Configuration compileConfiguration = mockConfiguration(
-        "compile",
-        /* canBeResolved = */ true,
-        State.UNRESOLVED,
-        mockSingleDependencySet(resolvedArtifact));
-    Project project = mockProjectWithConfiguration(compileConfiguration);
-
-    File libraryFile = DependencyUtil.getLibraryFile(project, artifactInfo);
-
-    assertThat(libraryFile).isNull();
-    verify(compileConfiguration, never()).getResolvedConfiguration();
-  }
-
-  @Test
-  public void getLibraryFile_withUnwantedConfigs_skipsUnwantedConfigs() throws Exception {
-    ArtifactInfo artifactInfo = new ArtifactInfo("com.google.android.gms.test", "test", "1.0.0");
-    File expectedFile = temporaryFolder.newFile();
-    ResolvedArtifact resolvedArtifact = mockResolvedArtifact(artifactInfo, expectedFile);
-    Configuration compileConfiguration = mockConfiguration(
-        "compile",
-        /* canBeResolved = */ true,
-        State.RESOLVED,
-        mockSingleDependencySet(resolvedArtifact));
-    Configuration arbitraryConfiguration = mockConfiguration(
-        "arbitrary",
-        /* canBeResolved = */ true,
-        State.RESOLVED,
-        mockSingleDependencySet(resolvedArtifact));
-    Configuration testConfiguration = mockConfiguration(
-        "androidTest",
-        /* canBeResolved = */ true,
-        State.RESOLVED,
-        mockSingleDependencySet(resolvedArtifact));
-    Configuration unresolvableConfiguration = mockConfiguration(
-        "api",
-        /* canBeResolved = */ false,
-        State.UNRESOLVED,
-        mockSingleDependencySet(resolvedArtifact));
-    Project project = mockProjectWithConfigurations(ImmutableSet.of(
-        compileConfiguration,
-        arbitraryConfiguration,
-        testConfiguration,
-        unresolvableConfiguration)
-    );
-
-    File libraryFile = DependencyUtil.getLibraryFile(project, artifactInfo);
-
-    assertThat(libraryFile).isEqualTo(expectedFile);
-    verify(compileConfiguration, times(1)).getResolvedConfiguration();
-    verify(arbitraryConfiguration, never()).getResolvedConfiguration();
-    verify(testConfiguration, never()).getResolvedConfiguration();
-    verify(unresolvableConfiguration, never()).getResolvedConfiguration();
-  }
-
-  @Test
-  public void getLibraryFile_withLibraryDependency_readsChildrenOfLibrary() throws Exception {
-    ArtifactInfo artifactInfo = new ArtifactInfo("com.google.android.gms.test", "test", "1.0.0");
-    File expectedFile = temporaryFolder.newFile();
-    ResolvedArtifact resolvedArtifact = mockResolvedArtifact(artifactInfo, expectedFile);
-
-    ResolvedDependency libraryDependency = mock(ResolvedDependency.class);
-    when(libraryDependency.getModuleVersion()).thenReturn(DependencyUtil.LOCAL_LIBRARY_VERSION);
-    ImmutableSet<ResolvedDependency> children = mockSingleDependencySet(resolvedArtifact);
-    when(libraryDependency.getChildren()).thenReturn(children);
-
-    Configuration compileConfiguration = mockConfiguration(
-        "compile",
-        /* canBeResolved = */ true,
-        State.RESOLVED,
-        ImmutableSet.of(libraryDependency));
-    Project project = mockProjectWithConfiguration(compileConfiguration);
-
-    File libraryFile = DependencyUtil.getLibraryFile(project, artifactInfo);
-
-    assertThat(libraryFile).isEqualTo(expectedFile);
-    verify(libraryDependency, never()).getAllModuleArtifacts();
-  }
-
-  @Test
-  public void getLibraryFile_withLibraryDependencyCycle_readsChildrenOfLibrary() throws Exception {
-    ArtifactInfo artifactInfo = new ArtifactInfo("com.google.android.gms.test", "test", "1.0.0");
-    File expectedFile = temporaryFolder.newFile();
-    ResolvedArtifact resolvedArtifact = mockResolvedArtifact(artifactInfo, expectedFile);
-
-    ResolvedDependency libraryDependency = mock(ResolvedDependency.class);
-    ResolvedDependency childLibraryDependency = mock(ResolvedDependency.class);
-    when(libraryDependency.getModuleVersion()).thenReturn(DependencyUtil.LOCAL_LIBRARY_VERSION);
-    when(libraryDependency.getChildren()).thenReturn(ImmutableSet.of(childLibraryDependency));
-    when(childLibraryDependency.getModuleVersion()).thenReturn(
-        DependencyUtil.LOCAL_LIBRARY_VERSION);
-    ImmutableSet<ResolvedDependency> grandChildren = ImmutableSet.of(
-        libraryDependency, // <- Two hop dependency cycle to parent
-        mockResolvedDependency(ImmutableSet.of(resolvedArtifact))
-    );
-    when(childLibraryDependency.getChildren()).thenReturn(grandChildren);
-
-    Configuration compileConfiguration = mockConfiguration(
-        "compile",
-        /* canBeResolved = */ true,
-        State.RESOLVED,
-        ImmutableSet.of(libraryDependency));
-    Project project = mockProjectWithConfiguration(compileConfiguration);
-
-    File libraryFile = DependencyUtil.getLibraryFile(project, artifactInfo);
-
-    assertThat(libraryFile).isEqualTo(expectedFile);
-    verify(libraryDependency, never()).getAllModuleArtifacts();
-  }
-
-  @Test
-  public void getLibraryFile_withStubLibraryDependency_readsFromMainConfig() throws Exception {
-    ArtifactInfo artifactInfo = new ArtifactInfo("com.google.android.gms.test", "test", "1.0.0");
-    File expectedFile = temporaryFolder.newFile();
-    ResolvedArtifact resolvedArtifact = mockResolvedArtifact(artifactInfo, expectedFile);
-
-    ResolvedDependency libraryDependency = mock(ResolvedDependency.class);
-    when(libraryDependency.getModuleVersion()).thenReturn(DependencyUtil.LOCAL_LIBRARY_VERSION);
-    ImmutableSet<ResolvedDependency> children = ImmutableSet.of();
-    when(libraryDependency.getChildren()).thenReturn(children);
-
-    Configuration compileConfiguration = mockConfiguration(
-        "compile",
-        /* canBeResolved = */ true,
-        State.RESOLVED,
-        ImmutableSet.of(
-            libraryDependency, mockResolvedDependency(ImmutableSet.of(resolvedArtifact))
-        ));
-    Project project = mockProjectWithConfiguration(compileConfiguration);
-
-    File libraryFile = DependencyUtil.getLibraryFile(project, artifactInfo);
-
-    assertThat(libraryFile).isEqualTo(expectedFile);
-    verify(libraryDependency, never()).getAllModuleArtifacts();
-  }
-
-  private Configuration mockConfiguration(String name, boolean canBeResolved,
-      Configuration.State state, ImmutableSet<ResolvedDependency> resolvedDependencies) {
-    Configuration configuration = mock(Configuration.class);
-    when(configuration.getName()).thenReturn(name);
-    when(configuration.getState()).thenReturn(state);
-    when(configuration.isCanBeResolved()).thenReturn(canBeResolved);
-
-    ResolvedConfiguration resolvedConfiguration = mock(ResolvedConfiguration.class);
-    when(configuration.getResolvedConfiguration()).thenReturn(resolvedConfiguration);
-    LenientConfiguration lenientConfiguration = mock(LenientConfiguration.class);
-    when(lenientConfiguration.getAllModuleDependencies()).thenReturn(resolvedDependencies);
-    when(resolvedConfiguration.getLenientConfiguration()).thenReturn(lenientConfiguration);
-
-    return configuration;
-  }
-
-  private ImmutableSet<ResolvedDependency> mockSingleDependencySet(
-      ResolvedArtifact resolvedArtifact) {
-    return ImmutableSet.of(mockResolvedDependency(ImmutableSet.of(resolvedArtifact)));
-  }
-
-  private ResolvedDependency mockResolvedDependency(
-      ImmutableSet<ResolvedArtifact> resolvedArtifacts) {
-    ResolvedDependency resolvedDependency = mock(ResolvedDependency.class);
-    when(resolvedDependency.getAllModuleArtifacts()).thenReturn(resolvedArtifacts);
-    return resolvedDependency;
-  }
-
-  private Project mockProjectWithConfiguration(Configuration configuration) {
-    return mockProjectWithConfigurations(ImmutableSet.of(configuration));
-  }
-
-  private Project mockProjectWithConfigurations(ImmutableSet<Configuration> configurations) {
-    ConfigurationContainer configurationContainer = mock(ConfigurationContainer.class);
-    when(configurationContainer.iterator())
-        .thenReturn(configurations.iterator());
-
-    Project project = mock(Project.class);
-    when(project.getConfigurations()).thenReturn(configurationContainer);
+  public void resolvePomFileArtifacts_returnsPomFilesOfResolvedArtifacts() throws Exception {
+    File repository = temporaryFolder.newFolder();
+    ArtifactInfo first = new ArtifactInfo("org.example", "first", "1.0.0");
+    ArtifactInfo second = new ArtifactInfo("org.example.other", "second", "2.0.0");
+    ArtifactInfo missing = new ArtifactInfo("org.example", "missing", "1.0.0");
+    File firstPom = writePom(repository, first);
+    File secondPom = writePom(repository, second);
+    Project project = ProjectBuilder.builder().withProjectDir(temporaryFolder.newFolder()).build();
+    project.getRepositories().maven(repo -> repo.setUrl(repository.toURI()));
+
+    Map<ArtifactInfo, File> pomFiles =
+        DependencyUtil.resolvePomFileArtifacts(project, ImmutableSet.of(first, second, missing));
+
+    assertThat(pomFiles.keySet()).containsExactly(first, second);
+    assertThat(Files.readAllBytes(pomFiles.get(first).toPath()))
+        .isEqualTo(Files.readAllBytes(firstPom.toPath()));
+    assertThat(Files.readAllBytes(pomFiles.get(second).toPath()))
+        .isEqualTo(Files.readAllBytes(secondPom.toPath()));
+    assertThat(DependencyUtil.resolvePomFileArtifact(project, missing)).isNull();
+  }
+
+  @Test
+  public void getPomFileIndex_and_getLibraryFileIndex_indexResolvedModules() throws Exception {
+    File repository = temporaryFolder.newFolder();
+    ArtifactInfo first = new ArtifactInfo("org.example", "first", "1.0.0");
+    ArtifactInfo second = new ArtifactInfo("org.example.other", "second", "2.0.0");
+    File firstPom = writePom(repository, first);
+    File secondPom = writePom(repository, second);
+    File firstJar = new File(firstPom.getParentFile(), "first-1.0.0.jar");
+    Files.write(firstJar.toPath(), new byte[] {1, 2, 3});
+    Project project = ProjectBuilder.builder().withProjectDir(temporaryFolder.newFolder()).build();
+    project.getRepositories().maven(repo -> repo.setUrl(repository.toURI()));
+    Configuration configuration = project.getConfigurations().create("runtimeClasspath");
+    project.getDependencies().add("runtimeClasspath", first.toString());
+    project.getDependencies().add("runtimeClasspath", second + "@pom");
+    project.getDependencies().add("runtimeClasspath", "org.example:missing:1.0.0");
+
+    Map<String, File> pomFiles = DependencyUtil.getPomFileIndex(project, configuration);
+    Map<String, File> libraryFiles = DependencyUtil.getLibraryFileIndex(
+        configuration, id -> id.getGroup().equals("org.example"));
+
+    assertThat(pomFiles.keySet()).containsExactly(first.toString(), second.toString());
+    assertThat(Files.readAllBytes(pomFiles.get(second.toString()).toPath()))
+        .isEqualTo(Files.readAllBytes(secondPom.toPath()));
+    assertThat(libraryFiles.keySet()).containsExactly(first.toString());
+    assertThat(Files.readAllBytes(libraryFiles.get(first.toString()).toPath()))
+        .isEqualTo(new byte[] {1, 2, 3});
+  }
+
+  @Test
+  public void getLibraryFileIndex_withProjectDependencyCycle_indexesAllArtifacts()
+      throws Exception {
+    File repository = temporaryFolder.newFolder();
+    ArtifactInfo first = new ArtifactInfo("org.example", "first", "1.0.0");
+    ArtifactInfo second = new ArtifactInfo("org.example", "second", "1.0.0");
+    for (ArtifactInfo artifact : new ArtifactInfo[] {first, second}) {
+      File pom = writePom(repository, artifact);
+      Files.write(new File(pom.getParentFile(),
+          artifact.getName() + "-" + artifact.getVersion() + ".jar").toPath(), new byte[] {1});
+    }
+    Project root = ProjectBuilder.builder().withProjectDir(temporaryFolder.newFolder()).build();
+    Project app = createJavaProject(root, "app", repository);
+    Project libraryA = createJavaProject(root, "libraryA", repository);
+    Project libraryB = createJavaProject(root, "libraryB", repository);
+    // app -> libraryA -> libraryB -> libraryA
+    app.getDependencies().add("implementation", libraryA);
+    libraryA.getDependencies().add("api", libraryB);
+    libraryA.getDependencies().add("api", first.toString());
+    libraryB.getDependencies().add("api", libraryA);
+    libraryB.getDependencies().add("api", second.toString());
+
+    Map<String, File> libraryFiles = DependencyUtil.getLibraryFileIndex(
+        app.getConfigurations().getByName("runtimeClasspath"), id -> true);
+
+    assertThat(libraryFiles.keySet()).containsExactly(first.toString(), second.toString());
+  }
+
+  @Test
+  public void addParentPomFiles_resolvesEachLevelOfParentsWithOneQuery() throws Exception {
+    File repository = temporaryFolder.newFolder();
+    ArtifactInfo first = new ArtifactInfo("org.example", "first", "1.0.0");
+    ArtifactInfo second = new ArtifactInfo("org.example", "second", "1.0.0");
+    ArtifactInfo parent = new ArtifactInfo("org.example", "parent", "1.0.0");
+    ArtifactInfo grandparent = new ArtifactInfo("org.example", "grandparent", "1.0.0");
+    ArtifactInfo missing = new ArtifactInfo("org.example", "missing", "1.0.0");
+    Map<ArtifactInfo, File> pomFiles = new HashMap<>();
+    pomFiles.put(first, writePom(repository, first, parent));
+    pomFiles.put(second, writePom(repository, second, missing));
+    File parentPom = writePom(repository, parent, grandparent);
+    File grandparentPom = writePom(repository, grandparent);
+    Project project = ProjectBuilder.builder().withProjectDir(temporaryFolder.newFolder()).build();
+    project.getRepositories().maven(repo -> repo.setUrl(repository.toURI()));
+    AtomicInteger queries = new AtomicInteger();
+    Project countingProject = countDependencyCalls(project, queries);
+    Map<ArtifactInfo, Optional<File>> resolvedParents = new HashMap<>();
+    Map<File, PomLicenses> poms = new HashMap<>();
+
+    DependencyUtil.addParentPomFiles(countingProject, pomFiles, resolvedParents, poms);
+
+    // One query for parent and missing, and one for grandparent.
+    assertThat(queries.get()).isEqualTo(2);
+    assertThat(pomFiles.keySet()).containsExactly(first, second, parent, grandparent);
+    assertThat(Files.readAllBytes(pomFiles.get(grandparent).toPath()))
+        .isEqualTo(Files.readAllBytes(grandparentPom.toPath()));
+    assertThat(resolvedParents.keySet()).containsExactly(parent, grandparent, missing);
+    assertThat(resolvedParents.get(missing).isPresent()).isFalse();
+    assertThat(poms.keySet()).containsExactly(pomFiles.get(first), pomFiles.get(second),
+        pomFiles.get(parent), pomFiles.get(grandparent));
+    assertThat(Files.readAllBytes(pomFiles.get(parent).toPath()))
+        .isEqualTo(Files.readAllBytes(parentPom.toPath()));
+  }
+
+  @Test
+  public void addParentPomFiles_resolvedParents_areNotResolvedAgain() throws Exception {
+    File repository = temporaryFolder.newFolder();
+    ArtifactInfo first = new ArtifactInfo("org.example", "first", "1.0.0");
+    ArtifactInfo second = new ArtifactInfo("org.example", "second", "1.0.0");
+    ArtifactInfo parent = new ArtifactInfo("org.example", "parent", "1.0.0");
+    ArtifactInfo missing = new ArtifactInfo("org.example", "missing", "1.0.0");
+    File firstPom = writePom(repository, first, parent);
+    File secondPom = writePom(repository, second, missing);
+    writePom(repository, parent);
+    Project project = ProjectBuilder.builder().withProjectDir(temporaryFolder.newFolder()).build();
+    project.getRepositories().maven(repo -> repo.setUrl(repository.toURI()));
+    AtomicInteger queries = new AtomicInteger();
+    Project countingProject = countDependencyCalls(project, queries);
+    Map<ArtifactInfo, Optional<File>> resolvedParents = new HashMap<>();
+    Map<File, PomLicenses> poms = new HashMap<>();
+    Map<ArtifactInfo, File> firstPomFiles = new HashMap<>();
+    firstPomFiles.put(first, firstPom);
+    firstPomFiles.put(second, secondPom);
+    DependencyUtil.addParentPomFiles(countingProject, firstPomFiles, resolvedParents, poms);
+    assertThat(queries.get()).isEqualTo(1);
+
+    Map<ArtifactInfo, File> secondPomFiles = new HashMap<>();
+    secondPomFiles.put(first, firstPom);
+    secondPomFiles.put(second, secondPom);
+    DependencyUtil.addParentPomFiles(countingProject, secondPomFiles, resolvedParents, poms);
+
+    assertThat(queries.get()).isEqualTo(1);
+    assertThat(secondPomFiles).isEqualTo(firstPomFiles);
+    assertThat(secondPomFiles.containsKey(missing)).isFalse();
+  }
+
+  /**
+   * Returns a project that delegates to project and counts its dependency handler requests, one of
+   * which is made for each artifact resolution query.
+   */
+  private static Project countDependencyCalls(Project project, AtomicInteger calls) {
+    return (Project) Proxy.newProxyInstance(
+        Project.class.getClassLoader(),
+        new Class<?>[] {Project.class},
+        (proxy, method, args) -> {
+          if (method.getName().equals("getDependencies")) {
+            calls.incrementAndGet();
+          }
+          try {
+            return method.invoke(project, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+        });
+  }
+
+  private static Project createJavaProject(Project root, String name, File repository) {
+    Project project = ProjectBuilder.builder().withName(name).withParent(root).build();
+    project.getPluginManager().apply("java-library");
+    project.getRepositories().maven(repo -> repo.setUrl(repository.toURI()));
     return project;
   }
 
-  private ResolvedArtifact mockResolvedArtifact(ArtifactInfo artifactInfo, File artifactFile) {
-    ModuleVersionIdentifier moduleId = mock(ModuleVersionIdentifier.class);
-    when(moduleId.getGroup()).thenReturn(artifactInfo.getGroup());
-    when(moduleId.getVersion()).thenReturn(artifactInfo.getVersion());
-
-    ResolvedModuleVersion moduleVersion = mock(ResolvedModuleVersion.class);
-    when(moduleVersion.getId()).thenReturn(moduleId);
-
-    ResolvedArtifact artifact = mock(ResolvedArtifact.class);
-    when(artifact.getName()).thenReturn(artifactInfo.getName());
-    when(artifact.getFile()).thenReturn(artifactFile);
-    when(artifact.getModuleVersion()).thenReturn(moduleVersion);
-
-    return artifact;
-  }
-
-  @Test
-  public void canBeResolved_isTrue() {
-    Configuration configuration = mock(Configuration.class);
-    when(configuration.isCanBeResolved()).thenReturn(true);
-
-    assertThat(DependencyUtil.canBeResolved(configuration)).isTrue();
+  private static File writePom(File repository, ArtifactInfo artifactInfo, ArtifactInfo parent)
+      throws IOException {
+    File pom = writePom(repository, artifactInfo);
+    String content = new String(Files.readAllBytes(pom.toPath()), "UTF-8").replace(
+        "  <modelVersion>4.0.0</modelVersion>\n",
+        "  <modelVersion>4.0.0</modelVersion>\n"
+            + "  <parent>\n"
+            + "    <groupId>" + parent.getGroup() + "</groupId>\n"
+            + "    <artifactId>" + parent.getName() + "</artifactId>\n"
+            + "    <version>" + parent.getVersion() + "</version>\n"
+            + "  </parent>\n");
+    Files.write(pom.toPath(), content.getBytes("UTF-8"));
+    return pom;
+  }
+
+  private static File writePom(File repository, ArtifactInfo artifactInfo) throws IOException {
+    File directory = new File(repository, artifactInfo.getGroup().replace('.', '/')
+        + "/" + artifactInfo.getName() + "/" + artifactInfo.getVersion());
+    directory.mkdirs();
+    File pom = new File(directory,
+        artifactInfo.getName() + "-" + artifactInfo.getVersion() + ".pom");
+    String content = "<project>\n"
+        + "  <modelVersion>4.0.0</modelVersion>\n"
+        + "  <groupId>" + artifactInfo.getGroup() + "</groupId>\n"
+        + "  <artifactId>" + artifactInfo.getName() + "</artifactId>\n"
+        + "  <version>" + artifactInfo.getVersion() + "</version>\n"
+        + "</project>\n";
+    Files.write(pom.toPath(), content.getBytes("UTF-8"));
+    return pom;
   }
-
-  @Test
-  public void canBeResolved_isFalse() {
-    Configuration configuration = mock(Configuration.class);
-    when(configuration.isCanBeResolved()).thenReturn(false);
-
-    assertThat(DependencyUtil.canBeResolved(configuration)).isFalse();
-  }
-
-  @Test
-  public void isTest_arbitraryConfiguration_returnsFalse() {
-    Configuration configuration = mock(Configuration.class);
-    when(configuration.getName()).thenReturn("arbitrary");
-
-    assertThat(DependencyUtil.isTest(configuration)).isFalse();
-  }
-
-  @Test
-  public void isTest_testCompile_returnsTrue() {
-    Configuration configuration = mock(Configuration.class);
-    when(configuration.getName()).thenReturn("testCompile");
-
-    assertThat(DependencyUtil.isTest(configuration)).isTrue();
-  }
-
-  @Test
-  public void isTest_androidTestCompile_returnsTrue() {
-    Configuration configuration = mock(Configuration.class);
-    when(configuration.getName()).thenReturn("androidTestCompile");
-
-    assertThat(DependencyUtil.isTest(configuration)).isTrue();
-  }
-
-  @Test
-  public void isTest_parentIsTest_returnsTrue() {
-    Configuration configuration = mock(Configuration.class);
-    when(configuration.getName()).thenReturn("someArbitraryChildName");
-
-    Configuration parent = mock(Configuration.class);
-    when(parent.getName()).thenReturn("testCompile");
-
-    Set<Configuration> hierarchy = new HashSet<>();
-    hierarchy.add(parent);
-
-    when(configuration.getHierarchy()).thenReturn(hierarchy);
-    assertThat(DependencyUtil.isTest(configuration)).isTrue();
-  }
-
-  @Test
-  public void isPackagedDependency_arbitraryConfiguration_returnsFalse() {
-    Configuration configuration = mock(Configuration.class);
-    when(configuration.getName()).thenReturn("arbitrary");
-
-    assertThat(DependencyUtil.isPackagedDependency(configuration)).isFalse();
-  }
-
-  @Test
-  public void isPackagedDependency_apiConfiguration_returnsTrue() {
-    Configuration configuration = mock(Configuration.class);
-    when(configuration.getName()).thenReturn("api");
-
-    assertThat(DependencyUtil.isPackagedDependency(configuration)).isTrue();
-  }
-
-  @Test
-  public void isPackagedDependency_implementationConfiguration_returnsTrue() {
-    Configuration configuration = mock(Configuration.class);
-    when(configuration.getName()).thenReturn("implementation");
-
-    assertThat(DependencyUtil.isPackagedDependency(configuration)).isTrue();
-  }
-
-  @Test
-  public void isPackagedDependency_compileConfiguration_returnsTrue() {
-    Configuration configuration = mock(Configuration.class);
-    when(configuration.getName()).thenReturn("compile");
-
-    assertThat(DependencyUtil.isPackagedDependency(configuration)).isTrue();
-  }
-
-  @Test
-  public void isPackagedDependency_compileConfigurationChild_returnsTrue() {
-    Configuration configuration = mock(Configuration.class);
-    when(configuration.getName()).thenReturn("someArbitraryChildName");
-
-    Configuration parent = mock(Configuration.class);
-    when(parent.getName()).thenReturn("compile");
-    Set<Configuration> hierarchy = new HashSet<>();
-    hierarchy.add(parent);
-    when(configuration.getHierarchy()).thenReturn(hierarchy);
-
-    assertThat(DependencyUtil.isPackagedDependency(configuration)).isTrue();
-  }
-
 }
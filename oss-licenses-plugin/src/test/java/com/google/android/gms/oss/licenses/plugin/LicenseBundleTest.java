@@ -0,0 +1,133 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link LicenseBundleWriter} and {@link LicenseBundleReader} */
+@RunWith(JUnit4.class)
+public class LicenseBundleTest {
+
+  private static final String LICENSES =
+      "https://www.apache.org/licenses/LICENSE-2.0\nMIT License\nCopyright© ü\n";
+  private static final List<String> METADATA =
+      ImmutableList.of(
+          "0:43 Deps 2",
+          "44:11 Deps 1",
+          "0:43 Deps 3",
+          "56:14 Ünicode");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void write_read_roundTrip() throws Exception {
+    LicenseBundleReader reader = writeAndRead(false);
+
+    assertRoundTrip(reader);
+  }
+
+  @Test
+  public void write_read_deflated_roundTrip() throws Exception {
+    LicenseBundleReader reader = writeAndRead(true);
+
+    assertRoundTrip(reader);
+  }
+
+  @Test
+  public void write_sharedLicense_storedOnce() throws Exception {
+    File bundleFile = temporaryFolder.newFile();
+    LicenseBundleWriter.write(
+        LICENSES.getBytes(UTF_8),
+        ImmutableList.of("0:43 Deps 1", "0:43 Deps 2"),
+        bundleFile,
+        false);
+
+    String content = new String(Files.readAllBytes(bundleFile.toPath()), UTF_8);
+    String license = "https://www.apache.org/licenses/LICENSE-2.0";
+    assertThat(content.indexOf(license)).isEqualTo(content.lastIndexOf(license));
+    LicenseBundleReader reader = new LicenseBundleReader(Files.readAllBytes(bundleFile.toPath()));
+    assertThat(reader.getLicenseText(1)).isEqualTo(license);
+  }
+
+  @Test
+  public void indexOf_duplicateName_returnsFirst() throws Exception {
+    File bundleFile = temporaryFolder.newFile();
+    LicenseBundleWriter.write(
+        LICENSES.getBytes(UTF_8),
+        ImmutableList.of("44:11 Deps 1", "0:43 Deps 1"),
+        bundleFile,
+        false);
+    LicenseBundleReader reader = new LicenseBundleReader(Files.readAllBytes(bundleFile.toPath()));
+
+    assertThat(reader.indexOf("Deps 1")).isEqualTo(0);
+    assertThat(reader.getLicenseText(0)).isEqualTo("MIT License");
+  }
+
+  @Test
+  public void write_emptyMetadata_hasNoEntries() throws Exception {
+    File bundleFile = temporaryFolder.newFile();
+    LicenseBundleWriter.write(new byte[0], ImmutableList.of(), bundleFile, true);
+    LicenseBundleReader reader = new LicenseBundleReader(Files.readAllBytes(bundleFile.toPath()));
+
+    assertThat(reader.size()).isEqualTo(0);
+    assertThat(reader.indexOf("Deps 1")).isEqualTo(-1);
+  }
+
+  @Test
+  public void read_notABundle_throwsException() {
+    try {
+      new LicenseBundleReader("not a license bundle".getBytes(UTF_8));
+      fail("IllegalArgumentException expected");
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessageThat().contains("Not a license bundle");
+    }
+  }
+
+  private LicenseBundleReader writeAndRead(boolean deflate) throws Exception {
+    File bundleFile = temporaryFolder.newFile();
+    LicenseBundleWriter.write(LICENSES.getBytes(UTF_8), METADATA, bundleFile, deflate);
+    return new LicenseBundleReader(Files.readAllBytes(bundleFile.toPath()));
+  }
+
+  private static void assertRoundTrip(LicenseBundleReader reader) {
+    assertThat(reader.size()).isEqualTo(4);
+    assertThat(reader.getName(0)).isEqualTo("Deps 1");
+    assertThat(reader.getName(1)).isEqualTo("Deps 2");
+    assertThat(reader.getName(2)).isEqualTo("Deps 3");
+    assertThat(reader.getName(3)).isEqualTo("Ünicode");
+    assertThat(reader.getLicenseText(reader.indexOf("Deps 1"))).isEqualTo("MIT License");
+    assertThat(reader.getLicenseText(reader.indexOf("Deps 2")))
+        .isEqualTo("https://www.apache.org/licenses/LICENSE-2.0");
+    assertThat(reader.getLicenseText(reader.indexOf("Deps 3")))
+        .isEqualTo("https://www.apache.org/licenses/LICENSE-2.0");
+    assertThat(reader.getLicenseText(reader.indexOf("Ünicode")))
+        .isEqualTo("Copyright© ü");
+    assertThat(reader.indexOf("Deps 0")).isEqualTo(-1);
+    assertThat(reader.indexOf("Deps 4")).isEqualTo(-1);
+  }
+}
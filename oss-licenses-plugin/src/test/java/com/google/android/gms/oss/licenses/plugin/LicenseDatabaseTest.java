@@ -0,0 +1,152 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.fail;
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.PomLicense;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link LicenseDatabase} and {@link LicenseDatabaseTask} */
+@RunWith(JUnit4.class)
+public class LicenseDatabaseTest {
+
+  private static final ArtifactInfo DEPS1 = new ArtifactInfo("groupA", "deps1", "1");
+  private static final ArtifactInfo DEPS2 = new ArtifactInfo("groupB", "deps2", "2");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void write_read_roundTrip() throws Exception {
+    File databaseFile = temporaryFolder.newFile();
+    LicenseDatabase.write(
+        ImmutableMap.of(
+            DEPS2, ImmutableList.of(),
+            DEPS1, ImmutableList.of(
+                new PomLicense("Deps 1", "Apache 2.0", "https://www.apache.org/licenses/LICENSE-2.0"),
+                new PomLicense("Deps 1", "MIT", "https://opensource.org/licenses/MIT"))),
+        databaseFile);
+
+    LicenseDatabase database = LicenseDatabase.read(databaseFile);
+
+    assertThat(database.size()).isEqualTo(2);
+    List<PomLicense> licenses = database.get(DEPS1);
+    assertThat(licenses).hasSize(2);
+    assertThat(licenses.get(0).getLibraryName()).isEqualTo("Deps 1");
+    assertThat(licenses.get(0).getLicenseName()).isEqualTo("Apache 2.0");
+    assertThat(licenses.get(1).getLicenseUrl()).isEqualTo("https://opensource.org/licenses/MIT");
+    // Known to have no licenses.
+    assertThat(database.contains(DEPS2)).isTrue();
+    assertThat(database.get(DEPS2)).isEmpty();
+    assertThat(database.contains(new ArtifactInfo("groupB", "deps2", "3"))).isFalse();
+    assertThat(database.get(new ArtifactInfo("groupB", "deps2", "3"))).isNull();
+    // Sorted by artifact.
+    String json = new String(Files.readAllBytes(databaseFile.toPath()), UTF_8);
+    assertThat(json.indexOf("groupA:deps1:1") < json.indexOf("groupB:deps2:2")).isTrue();
+  }
+
+  @Test
+  public void read_otherFormatVersion_throwsException() throws Exception {
+    File databaseFile = temporaryFolder.newFile();
+    Files.write(databaseFile.toPath(),
+        "{\"formatVersion\":0,\"artifacts\":[]}".getBytes(UTF_8));
+
+    try {
+      LicenseDatabase.read(databaseFile);
+      fail("IOException expected");
+    } catch (IOException e) {
+      assertThat(e).hasMessageThat().contains(databaseFile.getPath());
+    }
+  }
+
+  @Test
+  public void read_malformedFile_throwsException() throws Exception {
+    File databaseFile = temporaryFolder.newFile();
+    Files.write(databaseFile.toPath(), "{\"formatVersion\":".getBytes(UTF_8));
+
+    try {
+      LicenseDatabase.read(databaseFile);
+      fail("IOException expected");
+    } catch (IOException e) {
+      assertThat(e).hasMessageThat().contains(databaseFile.getPath());
+    }
+  }
+
+  @Test
+  public void action_writesLicensesOfResolvedPomFiles() throws Exception {
+    File repository = temporaryFolder.newFolder();
+    writePom(repository, DEPS1, "<licenses><license><name>MIT</name>"
+        + "<url>https://opensource.org/licenses/MIT</url></license></licenses>");
+    writePom(repository, DEPS2, "");
+    ArtifactInfo missing = new ArtifactInfo("groupC", "missing", "1");
+    Project project = ProjectBuilder.builder().withProjectDir(temporaryFolder.newFolder()).build();
+    project.getRepositories().maven(repo -> repo.setUrl(repository.toURI()));
+    Configuration configuration = project.getConfigurations().create("runtimeClasspath");
+    project.getDependencies().add("runtimeClasspath", DEPS1 + "@pom");
+    project.getDependencies().add("runtimeClasspath", DEPS2 + "@pom");
+    File manifestFile = temporaryFolder.newFile();
+    ArtifactManifest.write(ImmutableList.of(DEPS1, DEPS2, missing), manifestFile);
+    File databaseFile = new File(temporaryFolder.newFolder(), "license_database.json");
+    LicenseDatabaseTask task = project.getTasks().create("database", LicenseDatabaseTask.class);
+    task.getArtifactManifest().set(manifestFile);
+    task.getPomFiles().set(DependencyUtil.getPomFileIndex(project, configuration));
+    task.getLicenseDatabase().set(databaseFile);
+
+    task.action();
+
+    LicenseDatabase database = LicenseDatabase.read(databaseFile);
+    assertThat(database.size()).isEqualTo(2);
+    assertThat(database.get(DEPS1)).hasSize(1);
+    assertThat(database.get(DEPS1).get(0).getLibraryName()).isEqualTo("deps1");
+    assertThat(database.get(DEPS1).get(0).getLicenseName()).isEqualTo("MIT");
+    assertThat(database.get(DEPS2)).isEmpty();
+    assertThat(database.contains(missing)).isFalse();
+  }
+
+  private static void writePom(File repository, ArtifactInfo artifactInfo, String licenses)
+      throws IOException {
+    File directory = new File(repository, artifactInfo.getGroup().replace('.', '/')
+        + "/" + artifactInfo.getName() + "/" + artifactInfo.getVersion());
+    directory.mkdirs();
+    String content = "<project>\n"
+        + "  <modelVersion>4.0.0</modelVersion>\n"
+        + "  <groupId>" + artifactInfo.getGroup() + "</groupId>\n"
+        + "  <artifactId>" + artifactInfo.getName() + "</artifactId>\n"
+        + "  <version>" + artifactInfo.getVersion() + "</version>\n"
+        + "  <name>" + artifactInfo.getName() + "</name>\n"
+        + "  " + licenses + "\n"
+        + "</project>\n";
+    Files.write(
+        new File(directory, artifactInfo.getName() + "-" + artifactInfo.getVersion() + ".pom")
+            .toPath(),
+        content.getBytes(UTF_8));
+  }
+}
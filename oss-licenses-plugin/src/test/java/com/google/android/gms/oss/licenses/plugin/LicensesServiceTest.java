@@ -0,0 +1,113 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.PomLicense;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link LicensesService} */
+@RunWith(JUnit4.class)
+public class LicensesServiceTest {
+
+  private static final ArtifactInfo ARTIFACT = new ArtifactInfo("groupA", "deps1", "1.0.0");
+  private static final ArtifactInfo PARENT = new ArtifactInfo("groupA", "parent", "1.0.0");
+  private static final List<PomLicense> LICENSES = ImmutableList.of(
+      new PomLicense("Deps 1", "MIT", "http://www.opensource.org/licenses/mit-license.php"));
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+  private LicensesService service;
+
+  @Before
+  public void setUp() throws Exception {
+    Project project = ProjectBuilder.builder().withProjectDir(temporaryFolder.newFolder()).build();
+    service = project.getGradle().getSharedServices()
+        .registerIfAbsent("licensesService", LicensesService.class, spec -> {}).get();
+  }
+
+  @Test
+  public void getPomLicenses_readerRequestsOtherArtifact_returnsLicensesOfBoth() {
+    List<PomLicense> licenses = service.getPomLicenses(ARTIFACT,
+        () -> service.getPomLicenses(PARENT, () -> LICENSES));
+
+    assertThat(licenses).containsExactlyElementsIn(LICENSES);
+    assertThat(service.getPomLicenses(PARENT, () -> null)).containsExactlyElementsIn(LICENSES);
+  }
+
+  @Test
+  public void getPomLicenses_concurrentRequests_callReaderOnce() throws Exception {
+    AtomicInteger reads = new AtomicInteger();
+    CountDownLatch readerStarted = new CountDownLatch(1);
+    CountDownLatch releaseReader = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<List<PomLicense>> first = executor.submit(() ->
+          service.getPomLicenses(ARTIFACT, () -> {
+            reads.incrementAndGet();
+            readerStarted.countDown();
+            awaitUninterruptibly(releaseReader);
+            return LICENSES;
+          }));
+      readerStarted.await();
+      Future<List<PomLicense>> second = executor.submit(() ->
+          service.getPomLicenses(ARTIFACT, () -> {
+            reads.incrementAndGet();
+            return LICENSES;
+          }));
+      // A reader of another artifact is not blocked by the running reader.
+      assertThat(service.getPomLicenses(PARENT, () -> LICENSES)).isNotEmpty();
+      releaseReader.countDown();
+
+      assertThat(first.get(10, TimeUnit.SECONDS)).containsExactlyElementsIn(LICENSES);
+      assertThat(second.get(10, TimeUnit.SECONDS)).containsExactlyElementsIn(LICENSES);
+      assertThat(reads.get()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void getPomLicenses_nullLicenses_areReadAgain() {
+    assertThat(service.getPomLicenses(ARTIFACT, () -> null)).isNull();
+
+    assertThat(service.getPomLicenses(ARTIFACT, () -> LICENSES))
+        .containsExactlyElementsIn(LICENSES);
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
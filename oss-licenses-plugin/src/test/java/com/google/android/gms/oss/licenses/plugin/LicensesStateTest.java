@@ -0,0 +1,157 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.ArtifactLicenses;
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.Dependency;
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.DependencyLicense;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.HashMap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link LicensesState} */
+@RunWith(JUnit4.class)
+public class LicensesStateTest {
+
+  private static final ArtifactInfo POM_ARTIFACT = new ArtifactInfo("groupA", "deps1", "1.0.0");
+  private static final ArtifactInfo AAR_ARTIFACT =
+      new ArtifactInfo("com.google.android.gms", "play-services-foo", "17.0.0");
+  private static final String TERMS = "https://developer.android.com/studio/terms.html";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void save_load_returnsLicensesOfSameFingerprint() throws Exception {
+    File stateFile = new File(temporaryFolder.newFolder(), "licenses_state.json");
+    LicensesState state = LicensesState.load(stateFile);
+    state.put(POM_ARTIFACT, "pom", new ArtifactLicenses(
+        ImmutableList.of(new DependencyLicense(
+            new Dependency("groupA:deps1", "Deps 1"), TERMS.getBytes(UTF_8))),
+        ImmutableMap.of()));
+    state.put(AAR_ARTIFACT, "aar", new ArtifactLicenses(
+        ImmutableList.of(),
+        ImmutableMap.of("Terms", TERMS.getBytes(UTF_8), "safeparcel", "safe".getBytes(UTF_8))));
+    state.save();
+
+    LicensesState loadedState = LicensesState.load(stateFile);
+    ArtifactLicenses pomLicenses = loadedState.get(POM_ARTIFACT, "pom");
+    ArtifactLicenses aarLicenses = loadedState.get(AAR_ARTIFACT, "aar");
+
+    assertThat(pomLicenses.getPomLicenses()).hasSize(1);
+    DependencyLicense pomLicense = pomLicenses.getPomLicenses().get(0);
+    assertThat(pomLicense.getDependency().getKey()).isEqualTo("groupA:deps1");
+    assertThat(pomLicense.getDependency().getName()).isEqualTo("Deps 1");
+    assertThat(new String(pomLicense.getLicense(), UTF_8)).isEqualTo(TERMS);
+    assertThat(pomLicenses.getGooglePlayServiceLicenses()).isEmpty();
+    assertThat(aarLicenses.getGooglePlayServiceLicenses().keySet())
+        .containsExactly("Terms", "safeparcel").inOrder();
+    assertThat(new String(aarLicenses.getGooglePlayServiceLicenses().get("Terms"), UTF_8))
+        .isEqualTo(TERMS);
+    // The text shared by both artifacts is stored once.
+    String content = new String(Files.readAllBytes(stateFile.toPath()), UTF_8);
+    String encodedTerms = Base64.getEncoder().encodeToString(TERMS.getBytes(UTF_8));
+    assertThat(content.indexOf(encodedTerms)).isEqualTo(content.lastIndexOf(encodedTerms));
+  }
+
+  @Test
+  public void get_otherFingerprint_returnsNull() throws Exception {
+    File stateFile = new File(temporaryFolder.newFolder(), "licenses_state.json");
+    LicensesState state = LicensesState.load(stateFile);
+    state.put(POM_ARTIFACT, "pom", new ArtifactLicenses(ImmutableList.of(), ImmutableMap.of()));
+    state.save();
+
+    assertThat(LicensesState.load(stateFile).get(POM_ARTIFACT, "changed pom")).isNull();
+  }
+
+  @Test
+  public void get_parentPomFileChanged_returnsNull() throws Exception {
+    ArtifactInfo parent = new ArtifactInfo("groupA", "parent", "1.0");
+    File parentPom = temporaryFolder.newFile();
+    ParentPomLicenses parents =
+        new ParentPomLicenses(ImmutableMap.of(parent.toString(), parentPom), new HashMap<>());
+    File stateFile = new File(temporaryFolder.newFolder(), "licenses_state.json");
+    LicensesState state = LicensesState.load(stateFile);
+    state.put(POM_ARTIFACT, "pom", new ArtifactLicenses(ImmutableList.of(), ImmutableMap.of()),
+        ImmutableList.of(parent), parents);
+    state.save();
+
+    assertThat(LicensesState.load(stateFile).get(POM_ARTIFACT, "pom", parents)).isNotNull();
+    Files.write(parentPom.toPath(), "content".getBytes(UTF_8));
+    assertThat(LicensesState.load(stateFile).get(POM_ARTIFACT, "pom", parents)).isNull();
+  }
+
+  @Test
+  public void save_dropsArtifactsThatWereNotUsed() throws Exception {
+    File stateFile = new File(temporaryFolder.newFolder(), "licenses_state.json");
+    LicensesState state = LicensesState.load(stateFile);
+    state.put(POM_ARTIFACT, "pom", new ArtifactLicenses(ImmutableList.of(), ImmutableMap.of()));
+    state.put(AAR_ARTIFACT, "aar", new ArtifactLicenses(ImmutableList.of(), ImmutableMap.of()));
+    state.save();
+
+    LicensesState secondState = LicensesState.load(stateFile);
+    assertThat(secondState.get(AAR_ARTIFACT, "aar")).isNotNull();
+    secondState.save();
+
+    LicensesState loadedState = LicensesState.load(stateFile);
+    assertThat(loadedState.get(POM_ARTIFACT, "pom")).isNull();
+    assertThat(loadedState.get(AAR_ARTIFACT, "aar")).isNotNull();
+  }
+
+  @Test
+  public void save_allLicensesReused_doesNotWriteStateFile() throws Exception {
+    File stateFile = new File(temporaryFolder.newFolder(), "licenses_state.json");
+    LicensesState state = LicensesState.load(stateFile);
+    state.put(POM_ARTIFACT, "pom", new ArtifactLicenses(ImmutableList.of(), ImmutableMap.of()));
+    state.save();
+    LicensesState secondState = LicensesState.load(stateFile);
+    assertThat(secondState.get(POM_ARTIFACT, "pom")).isNotNull();
+    Files.delete(stateFile.toPath());
+
+    secondState.save();
+
+    assertThat(stateFile.exists()).isFalse();
+  }
+
+  @Test
+  public void load_corruptFile_isIgnored() throws Exception {
+    File stateFile = temporaryFolder.newFile();
+    Files.write(stateFile.toPath(), "{\"formatVersion\":1,\"artifacts\":[".getBytes(UTF_8));
+
+    assertThat(LicensesState.load(stateFile).get(POM_ARTIFACT, "pom")).isNull();
+  }
+
+  @Test
+  public void fingerprint_changesWithFileContent() throws Exception {
+    File file = temporaryFolder.newFile();
+    String emptyFingerprint = LicensesState.fingerprint(file, null);
+    Files.write(file.toPath(), "content".getBytes(UTF_8));
+
+    assertThat(LicensesState.fingerprint(file, null)).isNotEqualTo(emptyFingerprint);
+    assertThat(LicensesState.fingerprint(null, file))
+        .isNotEqualTo(LicensesState.fingerprint(file, null));
+  }
+}
@@ -19,6 +19,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -38,9 +40,20 @@ import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
 import org.gradle.internal.impldep.com.fasterxml.jackson.core.json.JsonWriteContext;
 import org.gradle.testfixtures.ProjectBuilder;
 import org.junit.Before;
@@ -57,10 +70,18 @@ public class LicensesTaskTest {
   private static final Charset UTF_8 = StandardCharsets.UTF_8;
   private static final String BASE_DIR = "src/test/resources";
   private static final String LINE_BREAK = System.getProperty("line.separator");
+  private static final String MIT_LICENSE = "http://www.opensource.org/licenses/mit-license.php";
+  private static final String APACHE_LICENSE = "https://www.apache.org/licenses/LICENSE-2.0";
+  private static final String BSD_LICENSE = "https://opensource.org/licenses/BSD-3-Clause";
+  private static final String TERMS_LICENSE = "https://developer.android.com/studio/terms.html";
   @Rule
   public TemporaryFolder temporaryFolder = new TemporaryFolder();
   private Project project;
   private LicensesTask licensesTask;
+  /** Maven repository that {@link #writePom} and {@link #writeAar} write artifacts to. */
+  private File repository;
+  /** Configuration of {@link #project} depending on the artifacts written to the repository. */
+  private Configuration runtimeClasspath;
 
   @Before
   public void setUp() throws IOException {
@@ -74,6 +95,10 @@ public class LicensesTaskTest {
     licensesTask.setRawResourceDir(outputDir);
     licensesTask.setLicenses(outputLicenses);
     licensesTask.setLicensesMetadata(outputMetadata);
+
+    repository = temporaryFolder.newFolder();
+    project.getRepositories().maven(repo -> repo.setUrl(repository.toURI()));
+    runtimeClasspath = project.getConfigurations().create("runtimeClasspath");
   }
 
   @Test
@@ -227,6 +252,49 @@ public class LicensesTaskTest {
     assertEquals("right © 1991-2017", content);
   }
 
+  @Test
+  public void testGetBytesFromInputStream_shortSkip() {
+    String test = "Copyright © 1991-2017 Unicode";
+    InputStream inputStream = new ByteArrayInputStream(test.getBytes(UTF_8)) {
+      @Override
+      public synchronized long skip(long n) {
+        return super.skip(Math.min(n, 1));
+      }
+    };
+    String content = new String(LicensesTask.getBytesFromInputStream(inputStream, 4, 18), UTF_8);
+    assertEquals("right © 1991-2017", content);
+  }
+
+  @Test
+  public void testGetBytesFromInputStream_offsetPastEnd_throwException() {
+    InputStream inputStream = new ByteArrayInputStream("test".getBytes(UTF_8));
+    try {
+      LicensesTask.getBytesFromInputStream(inputStream, 5, 1);
+      fail("This test should throw Exception.");
+    } catch (RuntimeException e) {
+      assertEquals("Failed to read license text.", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testGetBytesFromByteArray_specialCharacters() {
+    byte[] test = "Copyright © 1991-2017 Unicode".getBytes(UTF_8);
+    assertEquals("right © 1991-2017",
+        new String(LicensesTask.getBytesFromByteArray(test, 4, 18), UTF_8));
+    assertEquals("Unicode", new String(LicensesTask.getBytesFromByteArray(test, 23, 0), UTF_8));
+    assertEquals("Unicode", new String(LicensesTask.getBytesFromByteArray(test, 23, 100), UTF_8));
+  }
+
+  @Test
+  public void testGetBytesFromByteArray_offsetPastEnd_throwException() {
+    try {
+      LicensesTask.getBytesFromByteArray("test".getBytes(UTF_8), 5, 1);
+      fail("This test should throw Exception.");
+    } catch (RuntimeException e) {
+      assertEquals("Failed to read license text.", e.getMessage());
+    }
+  }
+
   @Test
   public void testAddGooglePlayServiceLicenses() throws IOException {
     File tempOutput = new File(licensesTask.getRawResourceDir(), "dependencies/groupC");
@@ -298,6 +366,58 @@ public class LicensesTaskTest {
     assertEquals(expected, content);
   }
 
+  @Test
+  public void testAppendLicense_sameText_writtenOnce() throws IOException {
+    licensesTask.appendDependency(
+        new LicensesTask.Dependency("license1", "license1"), "test".getBytes(UTF_8));
+    licensesTask.appendDependency(
+        new LicensesTask.Dependency("license2", "license2"), "test".getBytes(UTF_8));
+
+    String content = new String(Files.readAllBytes(licensesTask.getLicenses().toPath()), UTF_8);
+    assertEquals("test" + LINE_BREAK, content);
+    assertEquals("0:4 license2", licensesTask.licensesMap.get("license2"));
+    assertThat(licensesTask.licenseOffsets.size(), is(1));
+  }
+
+  @Test
+  public void testAppendLicense_whitespaceDifferences_writtenOnceIfCanonicalized()
+      throws IOException {
+    licensesTask.getCanonicalizeLicenses().set(true);
+    licensesTask.appendDependency(
+        new LicensesTask.Dependency("license1", "license1"),
+        "MIT License\n\nCopyright (c)".getBytes(UTF_8));
+    licensesTask.appendDependency(
+        new LicensesTask.Dependency("license2", "license2"),
+        " MIT License\r\n\r\nCopyright  (c)\r\n".getBytes(UTF_8));
+    licensesTask.appendDependency(
+        new LicensesTask.Dependency("license3", "license3"),
+        "MIT License\nCopyright (C)".getBytes(UTF_8));
+
+    String content = new String(Files.readAllBytes(licensesTask.getLicenses().toPath()), UTF_8);
+    assertEquals("MIT License\n\nCopyright (c)" + LINE_BREAK
+        + "MIT License\nCopyright (C)" + LINE_BREAK, content);
+    assertEquals("0:26 license2", licensesTask.licensesMap.get("license2"));
+  }
+
+  @Test
+  public void testAppendLicense_whitespaceDifferences_writtenTwiceByDefault() throws IOException {
+    licensesTask.appendDependency(
+        new LicensesTask.Dependency("license1", "license1"), "MIT License".getBytes(UTF_8));
+    licensesTask.appendDependency(
+        new LicensesTask.Dependency("license2", "license2"), "MIT  License".getBytes(UTF_8));
+
+    assertThat(licensesTask.licenseOffsets.size(), is(2));
+  }
+
+  @Test
+  public void testCanonicalizeLicense() {
+    assertEquals("a b c", new String(
+        LicensesTask.canonicalizeLicense("\t a\r\n\r\nb \f c \n".getBytes(UTF_8)), UTF_8));
+    assertEquals("", new String(LicensesTask.canonicalizeLicense(" \n ".getBytes(UTF_8)), UTF_8));
+    assertEquals("\u00e9 \u00e8", new String(
+        LicensesTask.canonicalizeLicense("\u00e9\n\u00e8".getBytes(UTF_8)), UTF_8));
+  }
+
   @Test
   public void testWriteMetadata() throws IOException {
     LicensesTask.Dependency dep1 = new LicensesTask.Dependency("test:foo", "Dependency 1");
@@ -312,6 +432,56 @@ public class LicensesTaskTest {
     assertEquals(expected, content);
   }
 
+  @Test
+  public void testWriteLicenses_metadataOffsetsMatchUnbufferedOutput() throws IOException {
+    File artifact = new File(licensesTask.getRawResourceDir(), "play-services-foo-license.aar");
+    createLicenseZip(artifact.getPath());
+    licensesTask.writeLicenses(() -> addSampleLicenses(licensesTask, artifact));
+    licensesTask.writeMetadata();
+
+    File unbufferedDir = temporaryFolder.newFolder();
+    LicensesTask unbufferedTask =
+        project.getTasks().create("generateUnbufferedLicenses", LicensesTask.class);
+    unbufferedTask.setRawResourceDir(unbufferedDir);
+    unbufferedTask.setLicenses(new File(unbufferedDir, "testLicenses"));
+    unbufferedTask.setLicensesMetadata(new File(unbufferedDir, "testMetadata"));
+    addSampleLicenses(unbufferedTask, artifact);
+    unbufferedTask.writeMetadata();
+
+    byte[] licenses = Files.readAllBytes(licensesTask.getLicenses().toPath());
+    assertEquals(
+        new String(Files.readAllBytes(unbufferedTask.getLicenses().toPath()), UTF_8),
+        new String(licenses, UTF_8));
+    String metadata =
+        new String(Files.readAllBytes(licensesTask.getLicensesMetadata().toPath()), UTF_8);
+    assertEquals(
+        new String(Files.readAllBytes(unbufferedTask.getLicensesMetadata().toPath()), UTF_8),
+        metadata);
+
+    int apacheStart = 50 + LINE_BREAK.length();
+    int safeparcelStart = apacheStart + 43 + LINE_BREAK.length();
+    int jsrStart = safeparcelStart + 10 + LINE_BREAK.length();
+    String expected =
+        "0:50 groupA deps1"
+            + LINE_BREAK
+            + "0:50 groupE deps5"
+            + LINE_BREAK
+            + apacheStart + ":43 groupE deps5"
+            + LINE_BREAK
+            + safeparcelStart + ":10 safeparcel"
+            + LINE_BREAK
+            + jsrStart + ":7 JSR 305"
+            + LINE_BREAK;
+    assertEquals(expected, metadata);
+    assertEquals(jsrStart + 7 + LINE_BREAK.length(), licenses.length);
+  }
+
+  private void addSampleLicenses(LicensesTask task, File artifact) {
+    task.addLicensesFromPom(getResourceFile("dependencies/groupA/deps1.pom"), "groupA", "deps1");
+    task.addLicensesFromPom(getResourceFile("dependencies/groupE/deps5.pom"), "groupE", "deps5");
+    task.addGooglePlayServiceLicenses(artifact);
+  }
+
   @Test
   public void testDependenciesWithNameDuplicatedNames() throws IOException {
     File deps6 = getResourceFile("dependencies/groupF/deps6.pom");
@@ -329,6 +499,357 @@ public class LicensesTaskTest {
     assertTrue(licensesTask.licensesMap.containsKey("groupF:deps7"));
   }
 
+  @Test
+  public void action_parallel_matchesSequentialOutput() throws Exception {
+    ArtifactInfo[] artifacts = new ArtifactInfo[] {
+        writePom(new ArtifactInfo("groupA", "deps1", "1"), MIT_LICENSE),
+        writePom(new ArtifactInfo("groupB", "deps2", "1"), APACHE_LICENSE),
+        writePom(new ArtifactInfo("groupE", "deps5", "1"), MIT_LICENSE, APACHE_LICENSE),
+        writePom(new ArtifactInfo("groupF", "deps6", "1")),
+        writeAar(new ArtifactInfo("com.google.android.gms", "play-services-foo", "17.0.0"),
+            TERMS_LICENSE),
+        writeAar(new ArtifactInfo("com.google.firebase", "firebase-bar", "18.0.0"),
+            TERMS_LICENSE),
+    };
+    LicensesTask sequentialTask = createLicensesTask("sequential", artifacts);
+    sequentialTask.action();
+    LicensesTask parallelTask = createLicensesTask("parallel", artifacts);
+    parallelTask.getParallelism().set(4);
+    parallelTask.action();
+
+    byte[] licenses = Files.readAllBytes(sequentialTask.getLicenses().toPath());
+    byte[] metadata = Files.readAllBytes(sequentialTask.getLicensesMetadata().toPath());
+    assertThat(sequentialTask.licensesMap.size(), is(8));
+    assertTrue(Arrays.equals(licenses,
+        Files.readAllBytes(parallelTask.getLicenses().toPath())));
+    assertTrue(Arrays.equals(metadata,
+        Files.readAllBytes(parallelTask.getLicensesMetadata().toPath())));
+  }
+
+  @Test
+  public void action_sharedLicensesService_readsEachArtifactOnce() throws Exception {
+    ArtifactInfo[] artifacts = new ArtifactInfo[] {
+        writePom(new ArtifactInfo("groupA", "deps1", "1"), MIT_LICENSE),
+        writeAar(new ArtifactInfo("com.google.android.gms", "play-services-foo", "17.0.0"),
+            TERMS_LICENSE),
+    };
+    LicensesService service = project.getGradle().getSharedServices()
+        .registerIfAbsent("licensesService", LicensesService.class, spec -> {}).get();
+    LicensesTask debugTask = createLicensesTask("debug", artifacts);
+    debugTask.getLicensesService().set(service);
+    LicensesTask releaseTask = createLicensesTask("release", artifacts);
+    releaseTask.getLicensesService().set(service);
+
+    debugTask.action();
+    for (File file : Files.walk(repository.toPath()).map(Path::toFile).toArray(File[]::new)) {
+      if (file.isFile()) {
+        assertTrue(file.delete());
+      }
+    }
+    releaseTask.action();
+
+    assertThat(releaseTask.licensesMap.size(), is(4));
+    assertTrue(Arrays.equals(Files.readAllBytes(debugTask.getLicenses().toPath()),
+        Files.readAllBytes(releaseTask.getLicenses().toPath())));
+    assertTrue(Arrays.equals(Files.readAllBytes(debugTask.getLicensesMetadata().toPath()),
+        Files.readAllBytes(releaseTask.getLicensesMetadata().toPath())));
+  }
+
+  @Test
+  public void action_incremental_readsOnlyChangedArtifacts() throws Exception {
+    ArtifactInfo deps1 = writePom(new ArtifactInfo("groupA", "deps1", "1"), MIT_LICENSE);
+    ArtifactInfo deps2 = writePom(new ArtifactInfo("groupB", "deps2", "1"), APACHE_LICENSE);
+    ArtifactInfo deps3 = writePom(new ArtifactInfo("groupC", "deps3", "1"), BSD_LICENSE);
+    ArtifactInfo foo = writeAar(
+        new ArtifactInfo("com.google.android.gms", "play-services-foo", "17.0.0"), TERMS_LICENSE);
+    File stateFile = new File(temporaryFolder.newFolder(), "licenses_state.json");
+    LicensesTask firstTask = createLicensesTask("first", deps1, deps2, foo);
+    firstTask.getLicensesStateFile().set(stateFile);
+    firstTask.action();
+
+    // A change that keeps the size and modification time of the POM file is
+    // not noticed, which shows that the licenses of deps1 are not read again.
+    File deps1Pom = artifactPath(deps1, "pom");
+    long lastModified = deps1Pom.lastModified();
+    String pom = new String(Files.readAllBytes(deps1Pom.toPath()), UTF_8);
+    Files.write(deps1Pom.toPath(),
+        pom.replace(MIT_LICENSE, MIT_LICENSE.toUpperCase()).getBytes(UTF_8));
+    assertTrue(deps1Pom.setLastModified(lastModified));
+    LicensesTask secondTask = createLicensesTask("second", deps1, deps3, foo);
+    secondTask.getLicensesStateFile().set(stateFile);
+    secondTask.action();
+
+    String licenses =
+        new String(Files.readAllBytes(secondTask.getLicenses().toPath()), UTF_8);
+    assertTrue(licenses.contains(MIT_LICENSE));
+    assertTrue(licenses.contains(BSD_LICENSE));
+    assertFalse(licenses.contains(APACHE_LICENSE));
+    assertTrue(secondTask.licensesMap.containsKey("groupC:deps3"));
+    assertFalse(secondTask.licensesMap.containsKey("groupB:deps2"));
+    assertThat(secondTask.licensesMap.size(), is(5));
+    String state = new String(Files.readAllBytes(stateFile.toPath()), UTF_8);
+    assertFalse(state.contains("deps2"));
+  }
+
+  @Test
+  public void action_metricsReport_countsWork() throws Exception {
+    File metricsReport = new File(temporaryFolder.newFolder(), "licenses_metrics.json");
+    LicensesTask task = createLicensesTask("metrics",
+        writePom(new ArtifactInfo("groupA", "deps1", "1"), MIT_LICENSE),
+        writePom(new ArtifactInfo("groupB", "deps2", "1"), MIT_LICENSE),
+        writeAar(new ArtifactInfo("com.google.android.gms", "play-services-foo", "17.0.0"),
+            TERMS_LICENSE));
+    task.getMetricsReport().set(metricsReport);
+
+    task.action();
+
+    TaskMetrics metrics = task.metrics;
+    assertThat(metrics.getCount(LicensesTask.ARTIFACTS), is(3L));
+    assertThat(metrics.getCount(LicensesTask.POM_FILES_PARSED), is(3L));
+    assertThat(metrics.getCount(LicensesTask.LIBRARIES_READ), is(1L));
+    assertTrue(metrics.getCount(LicensesTask.BYTES_INFLATED) > 0);
+    // deps2 shares the license of deps1.
+    assertThat(metrics.getCount(LicensesTask.LICENSES_DEDUPLICATED), is(1L));
+    assertThat(metrics.getCount(LicensesTask.LICENSES_WRITTEN),
+        is((long) task.licensesMap.size() - 1));
+    String report = new String(Files.readAllBytes(metricsReport.toPath()), UTF_8);
+    assertTrue(report.contains("\"task\":\":metrics\""));
+    assertTrue(report.contains("\"" + LicensesTask.PHASE_READ_LICENSES + "\""));
+    assertTrue(report.contains("\"" + LicensesTask.POM_FILES_PARSED + "\":3"));
+  }
+
+  @Test
+  public void action_pomLicenseCacheEntryEvictedAfterConfiguration_readsPomFile()
+      throws Exception {
+    ArtifactInfo deps1 = writePom(new ArtifactInfo("groupA", "deps1", "1"), MIT_LICENSE);
+    File cacheDir = temporaryFolder.newFolder();
+    PomLicenseCache cache = PomLicenseCache.load(cacheDir);
+    cache.put(deps1, Arrays.asList(new LicensesTask.PomLicense("deps1", "MIT", MIT_LICENSE)));
+    cache.save();
+    LicensesTask task = createLicensesTask("evicted", deps1);
+    task.getPomLicenseCacheDir().set(cacheDir);
+    // Another build fills a cache of one entry, which drops deps1.
+    PomLicenseCache otherBuildCache = PomLicenseCache.load(cacheDir, 1);
+    otherBuildCache.put(new ArtifactInfo("groupB", "deps2", "1"), Collections.emptyList());
+    otherBuildCache.save();
+    assertNull(PomLicenseCache.load(cacheDir).get(deps1));
+
+    task.action();
+
+    assertTrue(task.licensesMap.containsKey("groupA:deps1"));
+    assertThat(task.metrics.getCount(LicensesTask.POM_CACHE_MISSES), is(1L));
+    assertThat(task.metrics.getCount(LicensesTask.POM_FILES_PARSED), is(1L));
+  }
+
+  @Test
+  public void action_licenseDatabase_readsKnownArtifactsFromDatabase() throws Exception {
+    ArtifactInfo deps1 = writePom(new ArtifactInfo("groupA", "deps1", "1"), MIT_LICENSE);
+    // Not in the repository, so its licenses can only come from the database.
+    ArtifactInfo deps2 = new ArtifactInfo("groupB", "deps2", "1");
+    File databaseFile = temporaryFolder.newFile();
+    LicenseDatabase.write(
+        Collections.singletonMap(deps2, Arrays.asList(
+            new LicensesTask.PomLicense("Deps 2", "Apache 2.0", APACHE_LICENSE))),
+        databaseFile);
+    File report = new File(temporaryFolder.newFolder(), "unknown_artifacts.txt");
+    LicensesTask task = createLicensesTask("offline", deps1, deps2);
+    task.getLicenseDatabase().set(databaseFile);
+    task.getUnknownArtifactsReport().set(report);
+
+    task.action();
+
+    assertThat(task.licensesMap.get("groupB:deps2"), is("0:43 Deps 2"));
+    assertTrue(task.licensesMap.containsKey("groupA:deps1"));
+    assertThat(task.metrics.getCount(LicensesTask.DATABASE_HITS), is(1L));
+    assertThat(task.metrics.getCount(LicensesTask.POM_FILES_PARSED), is(1L));
+    assertThat(Files.readAllLines(report.toPath(), UTF_8), is(Arrays.asList("groupA:deps1:1")));
+  }
+
+  @Test
+  public void action_missingParentPom_licensesAreNotKept() throws Exception {
+    ArtifactInfo child = new ArtifactInfo("groupA", "child", "1");
+    ArtifactInfo parent = writePom(new ArtifactInfo("groupA", "parent", "1"), MIT_LICENSE);
+    File childPom = artifactPath(child, "pom");
+    Files.write(childPom.toPath(), ("<project>\n"
+        + "  <parent><groupId>groupA</groupId><artifactId>parent</artifactId>"
+        + "<version>1</version></parent>\n"
+        + "</project>\n").getBytes(UTF_8));
+    File cacheDir = temporaryFolder.newFolder();
+    File stateFile = new File(temporaryFolder.newFolder(), "licenses_state.json");
+    LicensesTask firstTask = createLicensesTask(
+        "first", Collections.singletonMap(child.toString(), childPom), child);
+    firstTask.getPomLicenseCacheDir().set(cacheDir);
+    firstTask.getLicensesStateFile().set(stateFile);
+    firstTask.action();
+    assertTrue(firstTask.licensesMap.isEmpty());
+
+    Map<String, File> pomFiles = new HashMap<>();
+    pomFiles.put(child.toString(), childPom);
+    pomFiles.put(parent.toString(), artifactPath(parent, "pom"));
+    LicensesTask secondTask = createLicensesTask("second", pomFiles, child);
+    secondTask.getPomLicenseCacheDir().set(cacheDir);
+    secondTask.getLicensesStateFile().set(stateFile);
+    secondTask.action();
+
+    assertThat(secondTask.licensesMap.get("groupA:child"), is("0:50 groupA:child"));
+    assertThat(PomLicenseCache.load(cacheDir).get(child).get(0).getLicenseUrl(), is(MIT_LICENSE));
+  }
+
+  @Test
+  public void action_parallelMalformedPom_failsWithReadError() throws Exception {
+    ArtifactInfo malformed = new ArtifactInfo("groupA", "malformed", "1");
+    ArtifactInfo valid = writePom(new ArtifactInfo("groupB", "deps2", "1"), MIT_LICENSE);
+    File malformedPom = artifactPath(malformed, "pom");
+    Files.write(malformedPom.toPath(), "<project><licenses>".getBytes(UTF_8));
+    Map<String, File> pomFiles = new HashMap<>();
+    pomFiles.put(malformed.toString(), malformedPom);
+    pomFiles.put(valid.toString(), artifactPath(valid, "pom"));
+    LicensesTask task = createLicensesTask("parallel", pomFiles, malformed, valid);
+    task.getParallelism().set(4);
+
+    try {
+      task.action();
+      fail("IOException expected");
+    } catch (Exception e) {
+      assertTrue(e instanceof IOException);
+      assertTrue(e.getMessage().contains(malformedPom.getPath()));
+    }
+  }
+
+  @Test
+  public void testReadLicenses_parallelReaderFails_interruptsOtherReaders() throws Exception {
+    IllegalStateException failure = new IllegalStateException("reader failed");
+    CountDownLatch otherReaderStarted = new CountDownLatch(1);
+    CountDownLatch otherReaderInterrupted = new CountDownLatch(1);
+    AtomicReference<Thread> otherReaderThread = new AtomicReference<>();
+    List<Callable<LicensesTask.ArtifactLicenses>> readers = Arrays.asList(
+        () -> {
+          otherReaderStarted.await(10, TimeUnit.SECONDS);
+          throw failure;
+        },
+        () -> {
+          otherReaderThread.set(Thread.currentThread());
+          otherReaderStarted.countDown();
+          try {
+            new CountDownLatch(1).await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            otherReaderInterrupted.countDown();
+          }
+          return null;
+        });
+    licensesTask.getParallelism().set(4);
+
+    try {
+      licensesTask.readLicenses(readers);
+      fail("IllegalStateException expected");
+    } catch (IllegalStateException e) {
+      assertSame(failure, e);
+    }
+    assertTrue(otherReaderInterrupted.await(5, TimeUnit.SECONDS));
+    otherReaderThread.get().join(5000);
+    assertFalse(otherReaderThread.get().isAlive());
+  }
+
+  /**
+   * Creates a task reading the licenses of artifacts from their POM and library files in {@link
+   * #repository}, resolved the way the plugin resolves them.
+   */
+  private LicensesTask createLicensesTask(String name, ArtifactInfo... artifacts)
+      throws IOException {
+    return createLicensesTask(
+        name, DependencyUtil.getPomFileIndex(project, runtimeClasspath), artifacts);
+  }
+
+  /**
+   * Creates a task reading the licenses of artifacts from pomFiles, keyed by group:name:version,
+   * and from their library files in {@link #repository}.
+   */
+  private LicensesTask createLicensesTask(
+      String name, Map<String, File> pomFiles, ArtifactInfo... artifacts) throws IOException {
+    File dependenciesJson = temporaryFolder.newFile();
+    try (FileWriter writer = new FileWriter(dependenciesJson)) {
+      new Gson().toJson(artifacts, writer);
+    }
+    File outputDir = temporaryFolder.newFolder();
+    LicensesTask task = project.getTasks().create(name, LicensesTask.class);
+    task.getDependenciesJson().set(dependenciesJson);
+    task.getPomFiles().set(pomFiles);
+    task.getLibraryFiles().set(DependencyUtil.getLibraryFileIndex(
+        runtimeClasspath, id -> LicensesTask.isGoogleServices(id.getGroup())));
+    task.setRawResourceDir(outputDir);
+    task.setLicenses(new File(outputDir, "testLicenses"));
+    task.setLicensesMetadata(new File(outputDir, "testMetadata"));
+    return task;
+  }
+
+  /**
+   * Writes the POM file of artifactInfo, listing licenseUrls, to {@link #repository} and adds it
+   * to {@link #runtimeClasspath}.
+   */
+  private ArtifactInfo writePom(ArtifactInfo artifactInfo, String... licenseUrls)
+      throws IOException {
+    writePomFile(artifactInfo, licenseUrls);
+    project.getDependencies().add(runtimeClasspath.getName(), artifactInfo + "@pom");
+    return artifactInfo;
+  }
+
+  /**
+   * Writes the POM file of artifactInfo and an AAR with the sample licenses to {@link
+   * #repository}, and adds the AAR to {@link #runtimeClasspath}.
+   */
+  private ArtifactInfo writeAar(ArtifactInfo artifactInfo, String licenseUrl) throws IOException {
+    writePomFile(artifactInfo, licenseUrl);
+    createLicenseZip(artifactPath(artifactInfo, "aar").getPath());
+    project.getDependencies().add(runtimeClasspath.getName(), artifactInfo + "@aar");
+    return artifactInfo;
+  }
+
+  private void writePomFile(ArtifactInfo artifactInfo, String... licenseUrls)
+      throws IOException {
+    StringBuilder content = new StringBuilder()
+        .append("<project>\n")
+        .append("  <modelVersion>4.0.0</modelVersion>\n")
+        .append("  <groupId>").append(artifactInfo.getGroup()).append("</groupId>\n")
+        .append("  <artifactId>").append(artifactInfo.getName()).append("</artifactId>\n")
+        .append("  <version>").append(artifactInfo.getVersion()).append("</version>\n")
+        .append("  <name>").append(artifactInfo.getName()).append("</name>\n");
+    if (licenseUrls.length > 0) {
+      content.append("  <licenses>\n");
+      for (String licenseUrl : licenseUrls) {
+        content.append("    <license>\n")
+            .append("      <name>").append(licenseUrl).append("</name>\n")
+            .append("      <url>").append(licenseUrl).append("</url>\n")
+            .append("    </license>\n");
+      }
+      content.append("  </licenses>\n");
+    }
+    content.append("</project>\n");
+    Files.write(artifactPath(artifactInfo, "pom").toPath(), content.toString().getBytes(UTF_8));
+  }
+
+  private File artifactPath(ArtifactInfo artifactInfo, String extension) {
+    File directory = new File(repository, artifactInfo.getGroup().replace('.', '/')
+        + "/" + artifactInfo.getName() + "/" + artifactInfo.getVersion());
+    directory.mkdirs();
+    return new File(directory,
+        artifactInfo.getName() + "-" + artifactInfo.getVersion() + "." + extension);
+  }
+
+  @Test
+  public void action_artifactManifest_rendersAbsentData() throws Exception {
+    File manifestFile = temporaryFolder.newFile();
+    ArtifactManifest.write(Arrays.asList(DependencyUtil.ABSENT_ARTIFACT), manifestFile);
+    licensesTask.getArtifactManifest().set(manifestFile);
+
+    licensesTask.action();
+
+    String line;
+    try (BufferedReader reader = new BufferedReader(new FileReader(licensesTask.getLicenses()))) {
+      line = reader.readLine();
+    }
+    assertEquals(LicensesTask.ABSENT_DEPENDENCY_TEXT, line);
+  }
+
   @Test
   public void action_absentDependencies_rendersAbsentData() throws Exception {
     File dependenciesJson = temporaryFolder.newFile();
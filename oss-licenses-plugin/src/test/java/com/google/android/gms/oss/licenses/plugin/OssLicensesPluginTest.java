@@ -0,0 +1,114 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link OssLicensesPlugin} in an Android app build. Needs an Android SDK, found through
+ * ANDROID_HOME or ANDROID_SDK_ROOT, and the Google Maven and Maven Central repositories.
+ */
+@RunWith(JUnit4.class)
+public class OssLicensesPluginTest {
+
+  private static final String TASK = ":releaseOssLicensesTask";
+  private static final String LICENSES =
+      "build/generated/third_party_licenses/release/res/raw/third_party_licenses";
+  private static final String BUILD_SCRIPT = "plugins {\n"
+      + "  id 'com.android.application'\n"
+      + "  id 'com.google.android.gms.oss-licenses-plugin'\n"
+      + "}\n"
+      + "android {\n"
+      + "  compileSdk 31\n"
+      + "  defaultConfig { minSdk 21 }\n"
+      + "}\n"
+      + "dependencies {\n"
+      + "  implementation 'com.google.code.gson:gson:2.8.9'\n"
+      + "}\n";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void licensesTask_configurationCacheAndBuildCache_isRestoredFromCache() throws Exception {
+    String sdkDir = System.getenv("ANDROID_HOME") != null
+        ? System.getenv("ANDROID_HOME")
+        : System.getenv("ANDROID_SDK_ROOT");
+    assumeTrue("No Android SDK", sdkDir != null);
+    File projectDir = temporaryFolder.newFolder("app");
+    File buildCacheDir = temporaryFolder.newFolder("build-cache");
+    write(new File(projectDir, "settings.gradle"), "dependencyResolutionManagement {\n"
+        + "  repositories {\n"
+        + "    google()\n"
+        + "    mavenCentral()\n"
+        + "  }\n"
+        + "}\n"
+        + "buildCache {\n"
+        + "  local { directory = file('" + buildCacheDir.toURI() + "') }\n"
+        + "}\n"
+        + "rootProject.name = 'app'\n");
+    write(new File(projectDir, "build.gradle"), BUILD_SCRIPT);
+    write(new File(projectDir, "local.properties"),
+        "sdk.dir=" + sdkDir.replace("\\", "\\\\") + "\n");
+    File manifest = new File(projectDir, "src/main/AndroidManifest.xml");
+    Files.createDirectories(manifest.getParentFile().toPath());
+    write(manifest, "<manifest package=\"com.example.app\"/>\n");
+    GradleRunner runner = GradleRunner.create()
+        .withProjectDir(projectDir)
+        .withTestKitDir(temporaryFolder.newFolder("testkit"))
+        .withPluginClasspath()
+        .withArguments(TASK, "--configuration-cache", "--build-cache");
+
+    BuildResult firstBuild = runner.build();
+    byte[] licenses = Files.readAllBytes(new File(projectDir, LICENSES).toPath());
+    deleteRecursively(new File(projectDir, "build"));
+    BuildResult secondBuild = runner.build();
+
+    assertThat(firstBuild.task(TASK).getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+    assertThat(firstBuild.getOutput()).contains("Configuration cache entry stored.");
+    assertThat(new String(licenses, UTF_8)).contains("apache.org/licenses/LICENSE-2.0");
+    assertThat(secondBuild.task(TASK).getOutcome()).isEqualTo(TaskOutcome.FROM_CACHE);
+    assertThat(secondBuild.getOutput()).contains("Configuration cache entry reused.");
+    assertThat(Files.readAllBytes(new File(projectDir, LICENSES).toPath())).isEqualTo(licenses);
+  }
+
+  private static void write(File file, String content) throws IOException {
+    Files.write(file.toPath(), content.getBytes(UTF_8));
+  }
+
+  private static void deleteRecursively(File file) throws IOException {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    Files.deleteIfExists(file.toPath());
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.PomLicense;
+import com.google.android.gms.oss.licenses.plugin.PomLicenseReader.PomLicenses;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ParentPomLicenses} */
+@RunWith(JUnit4.class)
+public class ParentPomLicensesTest {
+
+  private static final String MIT = "http://www.opensource.org/licenses/mit-license.php";
+  private static final ArtifactInfo CHILD = new ArtifactInfo("groupA", "child", "1.0");
+  private static final ArtifactInfo PARENT = new ArtifactInfo("groupA", "parent", "1.0");
+  private static final ArtifactInfo GRANDPARENT = new ArtifactInfo("groupA", "grandparent", "1.0");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final Map<String, File> pomFiles = new HashMap<>();
+  private final Map<File, PomLicenses> poms = new HashMap<>();
+
+  @Test
+  public void getLicenses_inheritedFromGrandparent_namedAfterLibrary() throws Exception {
+    writePom(PARENT, GRANDPARENT, null);
+    writePom(GRANDPARENT, null, MIT);
+
+    assertThat(new ParentPomLicenses(pomFiles, poms).getLicenses(PARENT, "Child"))
+        .containsExactly(new PomLicense("Child", MIT, MIT));
+  }
+
+  @Test
+  public void getLicenses_nearestLicensesWin() throws Exception {
+    writePom(PARENT, GRANDPARENT, MIT);
+    writePom(GRANDPARENT, null, "https://www.apache.org/licenses/LICENSE-2.0");
+
+    assertThat(new ParentPomLicenses(pomFiles, poms).getLicenses(PARENT, "Child"))
+        .containsExactly(new PomLicense("Child", MIT, MIT));
+  }
+
+  @Test
+  public void getLicenses_noLicenses_returnsEmptyList() throws Exception {
+    writePom(PARENT, GRANDPARENT, null);
+    writePom(GRANDPARENT, null, null);
+
+    assertThat(new ParentPomLicenses(pomFiles, poms).getLicenses(PARENT, "Child")).isEmpty();
+  }
+
+  @Test
+  public void getLicenses_missingPomFile_returnsNull() throws Exception {
+    writePom(PARENT, GRANDPARENT, null);
+
+    assertThat(new ParentPomLicenses(pomFiles, poms).getLicenses(PARENT, "Child")).isNull();
+  }
+
+  @Test
+  public void getLicenses_malformedPomFile_returnsNull() throws Exception {
+    writePom(PARENT, GRANDPARENT, null);
+    File grandparentPom = temporaryFolder.newFile();
+    Files.write(grandparentPom.toPath(), "<project><licenses>".getBytes(UTF_8));
+    pomFiles.put(GRANDPARENT.toString(), grandparentPom);
+
+    assertThat(new ParentPomLicenses(pomFiles, poms).getLicenses(PARENT, "Child")).isNull();
+  }
+
+  @Test
+  public void getLicenses_cycle_returnsEmptyList() throws Exception {
+    writePom(PARENT, GRANDPARENT, null);
+    writePom(GRANDPARENT, PARENT, null);
+
+    assertThat(new ParentPomLicenses(pomFiles, poms).getLicenses(PARENT, "Child")).isEmpty();
+  }
+
+  @Test
+  public void getLicenses_followsAtMostMaxDepthParents() throws Exception {
+    ArtifactInfo[] parents = new ArtifactInfo[ParentPomLicenses.MAX_DEPTH + 1];
+    for (int i = 0; i < parents.length; i++) {
+      parents[i] = new ArtifactInfo("groupA", "parent" + i, "1.0");
+    }
+    for (int i = 0; i < parents.length - 1; i++) {
+      writePom(parents[i], parents[i + 1], null);
+    }
+    writePom(parents[parents.length - 1], null, MIT);
+    ParentPomLicenses parentPomLicenses = new ParentPomLicenses(pomFiles, poms);
+
+    assertThat(parentPomLicenses.getLicenses(parents[0], "Child")).isEmpty();
+    assertThat(parentPomLicenses.getLicenses(parents[1], "Child"))
+        .containsExactly(new PomLicense("Child", MIT, MIT));
+  }
+
+  @Test
+  public void getLicenses_readsEachPomFileOnce() throws Exception {
+    File parentPom = writePom(PARENT, GRANDPARENT, null);
+    File grandparentPom = writePom(GRANDPARENT, null, MIT);
+    new ParentPomLicenses(pomFiles, poms).getLicenses(PARENT, "Child");
+    assertThat(poms.keySet()).containsExactly(parentPom, grandparentPom);
+
+    Files.delete(parentPom.toPath());
+    Files.delete(grandparentPom.toPath());
+
+    assertThat(new ParentPomLicenses(pomFiles, poms).getLicenses(PARENT, "Other"))
+        .containsExactly(new PomLicense("Other", MIT, MIT));
+  }
+
+  @Test
+  public void inheritLicenses_recordsParents() throws Exception {
+    File childPom = writePom(CHILD, PARENT, null);
+    writePom(PARENT, GRANDPARENT, null);
+    writePom(GRANDPARENT, null, MIT);
+    ParentPomLicenses parentPomLicenses = new ParentPomLicenses(pomFiles, poms);
+
+    assertThat(parentPomLicenses.getParents(childPom)).isEmpty();
+    assertThat(parentPomLicenses.inheritLicenses(
+            childPom, PomLicenseReader.readPom(childPom, CHILD.toString())))
+        .containsExactly(new PomLicense(CHILD.toString(), MIT, MIT));
+    assertThat(parentPomLicenses.getParents(childPom))
+        .containsExactly(PARENT, GRANDPARENT).inOrder();
+  }
+
+  /**
+   * Writes the POM file of artifactInfo with parent and license if they are set, and adds it to
+   * pomFiles.
+   */
+  private File writePom(ArtifactInfo artifactInfo, ArtifactInfo parent, String license)
+      throws IOException {
+    StringBuilder content = new StringBuilder("<project>\n");
+    if (parent != null) {
+      content.append("  <parent>\n")
+          .append("    <groupId>").append(parent.getGroup()).append("</groupId>\n")
+          .append("    <artifactId>").append(parent.getName()).append("</artifactId>\n")
+          .append("    <version>").append(parent.getVersion()).append("</version>\n")
+          .append("  </parent>\n");
+    }
+    if (license != null) {
+      content.append("  <licenses><license><name>").append(license)
+          .append("</name><url>").append(license).append("</url></license></licenses>\n");
+    }
+    content.append("</project>\n");
+    File pomFile = temporaryFolder.newFile(artifactInfo.getName() + ".pom");
+    Files.write(pomFile.toPath(), content.toString().getBytes(UTF_8));
+    pomFiles.put(artifactInfo.toString(), pomFile);
+    return pomFile;
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.PomLicense;
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link PomLicenseCache} */
+@RunWith(JUnit4.class)
+public class PomLicenseCacheTest {
+
+  private static final ArtifactInfo ARTIFACT = new ArtifactInfo("groupA", "deps1", "1.0.0");
+  private static final List<PomLicense> LICENSES = ImmutableList.of(
+      new PomLicense("Deps 1", "MIT License", "http://www.opensource.org/licenses/mit-license.php"),
+      new PomLicense("Deps 1", "Apache 2.0", "https://www.apache.org/licenses/LICENSE-2.0"));
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void save_load_returnsCachedLicenses() throws Exception {
+    File cacheDir = temporaryFolder.newFolder();
+    PomLicenseCache cache = PomLicenseCache.load(cacheDir);
+    cache.put(ARTIFACT, LICENSES);
+    cache.put(new ArtifactInfo("groupB", "deps2", "2.0.0"), ImmutableList.of());
+    cache.save();
+
+    PomLicenseCache loadedCache = PomLicenseCache.load(cacheDir);
+
+    assertThat(loadedCache.get(ARTIFACT)).containsExactlyElementsIn(LICENSES).inOrder();
+    assertThat(loadedCache.get(new ArtifactInfo("groupB", "deps2", "2.0.0"))).isEmpty();
+    assertThat(loadedCache.get(new ArtifactInfo("groupA", "deps1", "1.0.1"))).isNull();
+  }
+
+  @Test
+  public void save_noAddedEntries_doesNotWriteCacheFile() throws Exception {
+    File cacheDir = temporaryFolder.newFolder();
+    PomLicenseCache cache = PomLicenseCache.load(cacheDir);
+    cache.put(ARTIFACT, LICENSES);
+    cache.save();
+    PomLicenseCache loadedCache = PomLicenseCache.load(cacheDir);
+    loadedCache.get(ARTIFACT);
+    Files.delete(cacheDir.listFiles()[0].toPath());
+
+    cache.save();
+    loadedCache.save();
+
+    assertThat(cacheDir.listFiles()).isEmpty();
+  }
+
+  @Test
+  public void put_snapshotVersion_isNotCached() throws Exception {
+    PomLicenseCache cache = PomLicenseCache.load(temporaryFolder.newFolder());
+    ArtifactInfo snapshot = new ArtifactInfo("groupA", "deps1", "1.1.0-SNAPSHOT");
+
+    cache.put(snapshot, LICENSES);
+
+    assertThat(cache.get(snapshot)).isNull();
+  }
+
+  @Test
+  public void save_keepsEntriesSavedByOtherBuilds() throws Exception {
+    File cacheDir = temporaryFolder.newFolder();
+    PomLicenseCache firstBuild = PomLicenseCache.load(cacheDir);
+    PomLicenseCache secondBuild = PomLicenseCache.load(cacheDir);
+    ArtifactInfo otherArtifact = new ArtifactInfo("groupB", "deps2", "2.0.0");
+    firstBuild.put(ARTIFACT, LICENSES);
+    secondBuild.put(otherArtifact, LICENSES);
+
+    firstBuild.save();
+    secondBuild.save();
+
+    PomLicenseCache loadedCache = PomLicenseCache.load(cacheDir);
+    assertThat(loadedCache.get(ARTIFACT)).isNotNull();
+    assertThat(loadedCache.get(otherArtifact)).isNotNull();
+  }
+
+  @Test
+  public void put_overMaxEntries_evictsLeastRecentlyUsed() throws Exception {
+    File cacheDir = temporaryFolder.newFolder();
+    PomLicenseCache cache = PomLicenseCache.load(cacheDir, 2);
+    ArtifactInfo second = new ArtifactInfo("groupA", "deps2", "1.0.0");
+    ArtifactInfo third = new ArtifactInfo("groupA", "deps3", "1.0.0");
+    cache.put(ARTIFACT, LICENSES);
+    cache.put(second, LICENSES);
+    cache.get(ARTIFACT);
+    cache.put(third, LICENSES);
+    cache.save();
+
+    PomLicenseCache loadedCache = PomLicenseCache.load(cacheDir, 2);
+    assertThat(loadedCache.get(ARTIFACT)).isNotNull();
+    assertThat(loadedCache.get(second)).isNull();
+    assertThat(loadedCache.get(third)).isNotNull();
+  }
+
+  @Test
+  public void load_otherFormatVersion_isIgnored() throws Exception {
+    File cacheDir = temporaryFolder.newFolder();
+    PomLicenseCache cache = PomLicenseCache.load(cacheDir);
+    cache.put(ARTIFACT, LICENSES);
+    cache.save();
+    File cacheFile = cacheDir.listFiles()[0];
+    String content = new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8);
+    Files.write(cacheFile.toPath(),
+        content.replace("\"formatVersion\":" + PomLicenseCache.FORMAT_VERSION,
+            "\"formatVersion\":" + (PomLicenseCache.FORMAT_VERSION + 1))
+            .getBytes(StandardCharsets.UTF_8));
+
+    assertThat(PomLicenseCache.load(cacheDir).get(ARTIFACT)).isNull();
+  }
+
+  @Test
+  public void load_corruptFile_isIgnored() throws Exception {
+    File cacheDir = temporaryFolder.newFolder();
+    PomLicenseCache cache = PomLicenseCache.load(cacheDir);
+    cache.put(ARTIFACT, LICENSES);
+    cache.save();
+    Files.write(cacheDir.listFiles()[0].toPath(), "{\"formatVersion\":".getBytes());
+
+    assertThat(PomLicenseCache.load(cacheDir).get(ARTIFACT)).isNull();
+  }
+}
@@ -0,0 +1,298 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.fail;
+
+import com.google.android.gms.oss.licenses.plugin.LicensesTask.PomLicense;
+import groovy.util.XmlSlurper;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link PomLicenseReader} */
+@RunWith(JUnit4.class)
+public class PomLicenseReaderTest {
+
+  private static final String DEFAULT_NAME = "groupA:deps1";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void readPom_singleLicense() throws Exception {
+    File pomFile = writePom("<project>\n"
+        + "  <name>Deps 1</name>\n"
+        + "  <licenses>\n"
+        + "    <license>\n"
+        + "      <name>MIT License</name>\n"
+        + "      <url>http://www.opensource.org/licenses/mit-license.php</url>\n"
+        + "    </license>\n"
+        + "  </licenses>\n"
+        + "</project>\n");
+
+    List<PomLicense> licenses = PomLicenseReader.readPom(pomFile, DEFAULT_NAME).getLicenses();
+
+    assertThat(licenses).hasSize(1);
+    assertThat(licenses.get(0).getLibraryName()).isEqualTo("Deps 1");
+    assertThat(licenses.get(0).getLicenseName()).isEqualTo("MIT License");
+    assertThat(licenses.get(0).getLicenseUrl())
+        .isEqualTo("http://www.opensource.org/licenses/mit-license.php");
+    assertSameAsSlurper(pomFile);
+  }
+
+  @Test
+  public void readPom_multipleLicenses() throws Exception {
+    File pomFile = writePom("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+        + "  <licenses>\n"
+        + "    <license><name>Apache 2.0</name><url>https://www.apache.org/licenses/LICENSE-2.0</url>"
+        + "<distribution>repo</distribution></license>\n"
+        + "    <license><name>MIT</name><url>https://opensource.org/licenses/MIT</url></license>\n"
+        + "  </licenses>\n"
+        + "  <name>Deps 1</name>\n"
+        + "</project>\n");
+
+    List<PomLicense> licenses = PomLicenseReader.readPom(pomFile, DEFAULT_NAME).getLicenses();
+
+    assertThat(licenses).hasSize(2);
+    assertThat(licenses.get(0).getLibraryName()).isEqualTo("Deps 1");
+    assertThat(licenses.get(0).getLicenseUrl())
+        .isEqualTo("https://www.apache.org/licenses/LICENSE-2.0");
+    assertThat(licenses.get(1).getLicenseName()).isEqualTo("MIT");
+    assertSameAsSlurper(pomFile);
+  }
+
+  @Test
+  public void readPom_noLicenses_returnsNullLicenses() throws Exception {
+    File pomFile = writePom("<project>\n"
+        + "  <name>Deps 1</name>\n"
+        + "  <dependencies><dependency><name>not a license</name></dependency></dependencies>\n"
+        + "</project>\n");
+
+    assertThat(PomLicenseReader.readPom(pomFile, DEFAULT_NAME).getLicenses()).isNull();
+    assertSameAsSlurper(pomFile);
+  }
+
+  @Test
+  public void readPom_noLicenses_returnsParent() throws Exception {
+    File pomFile = writePom("<project>\n"
+        + "  <parent>\n"
+        + "    <groupId>org.example</groupId>\n"
+        + "    <artifactId>parent</artifactId>\n"
+        + "    <version>1.0</version>\n"
+        + "    <relativePath>../pom.xml</relativePath>\n"
+        + "  </parent>\n"
+        + "  <dependencies><dependency><version>2.0</version></dependency></dependencies>\n"
+        + "</project>\n");
+
+    PomLicenseReader.PomLicenses pom = PomLicenseReader.readPom(pomFile, DEFAULT_NAME);
+
+    assertThat(pom.getLicenses()).isNull();
+    assertThat(pom.getLibraryName()).isEqualTo(DEFAULT_NAME);
+    assertThat(pom.getParent()).isEqualTo(new ArtifactInfo("org.example", "parent", "1.0"));
+  }
+
+  @Test
+  public void readPom_withLicenses_ignoresParent() throws Exception {
+    File pomFile = writePom("<project>\n"
+        + "  <parent><groupId>org.example</groupId><artifactId>parent</artifactId>"
+        + "<version>1.0</version></parent>\n"
+        + "  <licenses><license><name>MIT</name></license></licenses>\n"
+        + "</project>\n");
+
+    PomLicenseReader.PomLicenses pom = PomLicenseReader.readPom(pomFile, DEFAULT_NAME);
+
+    assertThat(pom.getLicenses()).hasSize(1);
+    assertThat(pom.getParent()).isNull();
+  }
+
+  @Test
+  public void readPom_incompleteParent_returnsNoParent() throws Exception {
+    File pomFile = writePom("<project>\n"
+        + "  <parent><groupId>org.example</groupId><artifactId>parent</artifactId></parent>\n"
+        + "</project>\n");
+
+    assertThat(PomLicenseReader.readPom(pomFile, DEFAULT_NAME).getParent()).isNull();
+  }
+
+  @Test
+  public void readPom_sameAsSlurper() throws Exception {
+    String[] poms = {
+        // No name and an empty licenses element.
+        "<project><licenses/></project>",
+        // Blank name, a license without a name and whitespace around the url.
+        "<project><name>  </name><licenses><license><url> http://a </url></license>"
+            + "</licenses></project>",
+        // Comments, CDATA, entities and nested elements in the text.
+        "<project><name>Deps<!-- comment --> 1</name><licenses><license>"
+            + "<name>A<b>x</b> y</name><url><![CDATA[http://a?b&c]]>&amp;d</url>"
+            + "</license></licenses></project>",
+        // Names of other elements are ignored.
+        "<project><parent><name>Parent</name></parent><licenses><license><name>A</name>"
+            + "</license></licenses><developers><developer><name>Dev</name></developer>"
+            + "</developers></project>",
+        // Prefixed namespace.
+        "<p:project xmlns:p=\"http://maven.apache.org/POM/4.0.0\"><p:name>Deps 1</p:name>"
+            + "<p:licenses><p:license><p:url>http://a</p:url></p:license></p:licenses>"
+            + "</p:project>",
+    };
+    for (String pom : poms) {
+      assertSameAsSlurper(writePom(pom));
+    }
+    List<Path> resourcePoms;
+    try (Stream<Path> paths = Files.walk(Paths.get("src/test/resources/dependencies"))) {
+      resourcePoms = paths.filter(path -> path.toString().endsWith(".pom"))
+          .collect(Collectors.toList());
+    }
+    assertThat(resourcePoms).isNotEmpty();
+    for (Path pomFile : resourcePoms) {
+      assertSameAsSlurper(pomFile.toFile());
+    }
+  }
+
+  @Test
+  public void readPom_externalEntity_isNotResolved() throws Exception {
+    File secret = temporaryFolder.newFile();
+    Files.write(secret.toPath(), "secret".getBytes(UTF_8));
+    File pomFile = writePom("<?xml version=\"1.0\"?>\n"
+        + "<!DOCTYPE project [<!ENTITY xxe SYSTEM \"" + secret.toURI() + "\">]>\n"
+        + "<project><name>&xxe;</name><licenses><license><url>http://a</url></license>"
+        + "</licenses></project>");
+
+    List<PomLicense> licenses = PomLicenseReader.readPom(pomFile, DEFAULT_NAME).getLicenses();
+
+    assertThat(licenses).containsExactly(new PomLicense(DEFAULT_NAME, "", "http://a"));
+  }
+
+  @Test
+  public void readPom_internalEntity_isReplaced() throws Exception {
+    File pomFile = writePom("<?xml version=\"1.0\"?>\n"
+        + "<!DOCTYPE project [<!ENTITY company \"Lib &#38;#38; Co\">]>\n"
+        + "<project><name>&company;</name><licenses><license><url>http://a</url></license>"
+        + "</licenses></project>");
+
+    List<PomLicense> licenses = PomLicenseReader.readPom(pomFile, DEFAULT_NAME).getLicenses();
+
+    assertThat(licenses).containsExactly(new PomLicense("Lib & Co", "", "http://a"));
+  }
+
+  @Test
+  public void readPom_externalDtd_isNotLoaded() throws Exception {
+    File dtd = temporaryFolder.newFile();
+    Files.write(dtd.toPath(), "<!ENTITY company \"secret\">".getBytes(UTF_8));
+    File pomFile = writePom("<?xml version=\"1.0\"?>\n"
+        + "<!DOCTYPE project SYSTEM \"" + dtd.toURI() + "\">\n"
+        + "<project><name>Lib&company;</name><licenses><license><url>http://a</url></license>"
+        + "</licenses></project>");
+
+    List<PomLicense> licenses = PomLicenseReader.readPom(pomFile, DEFAULT_NAME).getLicenses();
+
+    assertThat(licenses).containsExactly(new PomLicense("Lib", "", "http://a"));
+  }
+
+  @Test
+  public void readPom_malformedPom_throwsException() throws Exception {
+    File pomFile = writePom("<project><licenses>");
+
+    try {
+      PomLicenseReader.readPom(pomFile, DEFAULT_NAME).getLicenses();
+      fail("IOException expected");
+    } catch (IOException e) {
+      assertThat(e).hasMessageThat().contains(pomFile.getPath());
+    }
+  }
+
+  private File writePom(String content) throws IOException {
+    File pomFile = temporaryFolder.newFile();
+    Files.write(pomFile.toPath(), content.getBytes(UTF_8));
+    return pomFile;
+  }
+
+  /**
+   * Asserts that pomFile is read like the XmlSlurper-based reader of previous
+   * versions of the plugin read it, which read no licenses element as no
+   * licenses.
+   */
+  private static void assertSameAsSlurper(File pomFile) throws Exception {
+    List<PomLicense> licenses = PomLicenseReader.readPom(pomFile, DEFAULT_NAME).getLicenses();
+    assertThat(toStrings(licenses != null ? licenses : Collections.emptyList()))
+        .isEqualTo(toStrings(readWithSlurper(pomFile)));
+  }
+
+  private static List<PomLicense> readWithSlurper(File pomFile) throws Exception {
+    Object rootNode = new XmlSlurper().parse(pomFile);
+    Object licensesNode = InvokerHelper.getProperty(rootNode, "licenses");
+    if (size(licensesNode) == 0) {
+      return Collections.emptyList();
+    }
+
+    String libraryName = text(InvokerHelper.getProperty(rootNode, "name"));
+    if (libraryName.trim().isEmpty()) {
+      libraryName = DEFAULT_NAME;
+    }
+    Object licenseNodes = InvokerHelper.getProperty(licensesNode, "license");
+    List<PomLicense> licenses = new ArrayList<>();
+    if (size(licenseNodes) > 1) {
+      for (Object license : children(licenseNodes)) {
+        licenses.add(new PomLicense(libraryName,
+            text(InvokerHelper.getProperty(license, "name")),
+            text(InvokerHelper.getProperty(license, "url"))));
+      }
+      return licenses;
+    }
+    licenses.add(new PomLicense(libraryName,
+        text(InvokerHelper.getProperty(licenseNodes, "name")),
+        text(InvokerHelper.getProperty(licenseNodes, "url"))));
+    return licenses;
+  }
+
+  private static List<Object> children(Object node) {
+    List<Object> children = new ArrayList<>();
+    InvokerHelper.asIterator(node).forEachRemaining(children::add);
+    return children;
+  }
+
+  private static int size(Object node) {
+    return (Integer) InvokerHelper.invokeMethod(node, "size", null);
+  }
+
+  private static String text(Object node) {
+    return (String) InvokerHelper.invokeMethod(node, "text", null);
+  }
+
+  private static List<String> toStrings(List<PomLicense> licenses) {
+    List<String> strings = new ArrayList<>();
+    for (PomLicense license : licenses) {
+      strings.add(license.getLibraryName() + "|" + license.getLicenseName() + "|"
+          + license.getLicenseUrl());
+    }
+    return strings;
+  }
+}
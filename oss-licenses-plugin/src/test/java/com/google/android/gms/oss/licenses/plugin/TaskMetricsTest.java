@@ -0,0 +1,96 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.android.gms.oss.licenses.plugin;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link TaskMetrics} */
+@RunWith(JUnit4.class)
+public class TaskMetricsTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void time_returnsResultAndAddsUpPhase() throws Exception {
+    TaskMetrics metrics = new TaskMetrics();
+
+    String result = metrics.time("phase", () -> {
+      Thread.sleep(5);
+      return "result";
+    });
+    metrics.time("phase", () -> {
+      Thread.sleep(5);
+      return null;
+    });
+
+    assertThat(result).isEqualTo("result");
+    assertThat(metrics.getPhaseNanos("phase")).isAtLeast(10_000_000L);
+    assertThat(metrics.getPhaseNanos("other")).isEqualTo(0L);
+  }
+
+  @Test
+  public void increment_fromSeveralThreads_countsAll() throws Exception {
+    TaskMetrics metrics = new TaskMetrics();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread thread = new Thread(() -> {
+        for (int j = 0; j < 1000; j++) {
+          metrics.increment("count");
+          metrics.increment("bytes", 2);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(metrics.getCount("count")).isEqualTo(4000L);
+    assertThat(metrics.getCount("bytes")).isEqualTo(8000L);
+    assertThat(metrics.getCount("other")).isEqualTo(0L);
+  }
+
+  @Test
+  public void write_writesPhasesAndCounters() throws Exception {
+    TaskMetrics metrics = new TaskMetrics();
+    metrics.time("phase", () -> null);
+    metrics.increment("count", 3);
+    File reportFile = new File(temporaryFolder.newFolder(), "metrics/report.json");
+
+    metrics.write(":app:releaseOssLicensesTask", reportFile);
+
+    JsonObject report = JsonParser.parseString(
+        new String(Files.readAllBytes(reportFile.toPath()), UTF_8)).getAsJsonObject();
+    assertThat(report.get("formatVersion").getAsInt()).isEqualTo(TaskMetrics.FORMAT_VERSION);
+    assertThat(report.get("task").getAsString()).isEqualTo(":app:releaseOssLicensesTask");
+    assertThat(report.getAsJsonObject("phaseMillis").has("phase")).isTrue();
+    assertThat(report.getAsJsonObject("counters").get("count").getAsLong()).isEqualTo(3L);
+  }
+}
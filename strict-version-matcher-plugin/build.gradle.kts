@@ -3,6 +3,7 @@ plugins {
     id("java-gradle-plugin")
     id("org.jetbrains.kotlin.jvm") version "1.8.22"
     id("com.gradle.plugin-publish") version "1.1.0"
+    id("me.champeau.jmh") version "0.6.8"
 }
 
 group = "com.google.android.gms"
@@ -34,6 +35,17 @@ kotlin {
     jvmToolchain(11)
 }
 
+// Benchmarks of the dependency analysis in src/jmh, run with ./gradlew jmh. Results, including
+// the bytes allocated per operation, are written to build/results/jmh.
+jmh {
+    jmhVersion.set("1.36")
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
+
 publishing {
     publications {
         create<MavenPublication>("pluginMaven") {
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.dependencies;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the {@link DependencyAnalyzer} reads done for each resolved configuration. Run
+ * with the gc profiler, gc.alloc.rate.norm is the garbage allocated by each read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DependencyAnalyzerBenchmark {
+
+  @Param({"100", "1000"})
+  public int libraries;
+
+  private SyntheticGraph graph;
+  private DependencyAnalyzer analyzer;
+  private Map<Artifact, ArtifactVersion> resolvedVersions;
+  private ArtifactDependencyManager dependencyManager;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    graph = SyntheticGraph.create(libraries);
+    analyzer = graph.register();
+    resolvedVersions = new HashMap<>();
+    for (ArtifactVersion version : graph.resolvedVersions) {
+      resolvedVersions.put(version.getArtifact(), version);
+    }
+    dependencyManager = new ArtifactDependencyManager();
+    for (Dependency dependency : graph.dependencies) {
+      dependencyManager.addDependency(dependency);
+    }
+  }
+
+  /** The reads of one DependencyInspector.afterResolve call that finds no issue. */
+  @Benchmark
+  public Collection<Dependency> getActiveDependencies() {
+    return analyzer.getActiveDependencies(graph.resolvedVersions);
+  }
+
+  /** The verification of one DependencyInspector.afterResolve call that finds no issue. */
+  @Benchmark
+  public Collection<Dependency> getIncompatibleDependencies() {
+    return analyzer.getIncompatibleDependencies(resolvedVersions);
+  }
+
+  @Benchmark
+  public void getDependencies(Blackhole blackhole) {
+    for (Artifact artifact : graph.artifacts) {
+      blackhole.consume(dependencyManager.getDependencies(artifact));
+    }
+  }
+
+  @Benchmark
+  public DependencyAnalyzer registerDependencies() {
+    return graph.register();
+  }
+
+  /** The registrations of the DependencyInspector, which parses each dependency it registers. */
+  @Benchmark
+  public DependencyAnalyzer parseAndRegisterDependencies() {
+    return graph.parseAndRegister();
+  }
+}
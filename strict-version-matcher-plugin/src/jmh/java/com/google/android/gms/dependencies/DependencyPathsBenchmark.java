@@ -0,0 +1,60 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.dependencies;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark of {@link DependencyAnalyzer#getPaths} on {@link SyntheticGraph#layered} graphs,
+ * whose number of paths is exponential in the number of layers. The time per operation should
+ * grow linearly with the number of layers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DependencyPathsBenchmark {
+
+  static final int WIDTH = 8;
+
+  @Param({"10", "100", "1000"})
+  public int layers;
+
+  private DependencyAnalyzer analyzer;
+  private Artifact lastLayerLibrary;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SyntheticGraph graph = SyntheticGraph.layered(layers, WIDTH);
+    analyzer = graph.register();
+    lastLayerLibrary = graph.artifacts.get(graph.artifacts.size() - 1);
+  }
+
+  @Benchmark
+  public Collection<Node> getPaths() {
+    return analyzer.getPaths(lastLayerLibrary);
+  }
+}
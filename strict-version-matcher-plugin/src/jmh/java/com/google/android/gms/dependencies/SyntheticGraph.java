@@ -0,0 +1,133 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms.dependencies;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generated dependencies between Google Play services libraries, shaped like those registered by
+ * the {@link DependencyInspector} of a multi-module app: each library depends on a few of the
+ * libraries after it at an exact version, and the same dependencies are registered once per
+ * resolved configuration.
+ */
+final class SyntheticGraph {
+  static final String GROUP_ID = "com.google.android.gms";
+  static final String VERSION = "1.0.0";
+  /** Number of libraries each library depends on. */
+  static final int FAN_OUT = 4;
+  /** Number of libraries the app depends on directly. */
+  static final int DIRECT_DEPENDENCIES = 10;
+  /** Number of configurations that register the same dependencies. */
+  static final int CONFIGURATIONS = 3;
+
+  final List<Dependency> dependencies = new ArrayList<>();
+  final List<ArtifactVersion> resolvedVersions = new ArrayList<>();
+  final List<Artifact> artifacts = new ArrayList<>();
+
+  private SyntheticGraph() {}
+
+  /** Returns a graph of libraries that are resolved at the versions they depend on. */
+  static SyntheticGraph create(int libraries) {
+    SyntheticGraph graph = new SyntheticGraph();
+    for (int i = 0; i < libraries; i++) {
+      ArtifactVersion library = library(i);
+      graph.resolvedVersions.add(library);
+      graph.artifacts.add(library.getArtifact());
+      for (int j = i + 1; j <= i + FAN_OUT && j < libraries; j++) {
+        graph.dependencies.add(new Dependency(library, library(j).getArtifact(), "[" + VERSION + "]"));
+      }
+    }
+    for (int configuration = 0; configuration < CONFIGURATIONS; configuration++) {
+      ArtifactVersion project = new ArtifactVersion(
+          "gradle.project", "app-configuration" + configuration + "-app", "0.0.0");
+      for (int i = 0; i < DIRECT_DEPENDENCIES && i < libraries; i++) {
+        graph.dependencies.add(
+            new Dependency(project, library(i).getArtifact(), "[" + VERSION + "]"));
+      }
+    }
+    return graph;
+  }
+
+  /**
+   * Returns the worst case for listing paths: layers of libraries where each library depends on
+   * every library of the next layer, so there are width^layers paths from the app to each library
+   * of the last layer.
+   */
+  static SyntheticGraph layered(int layers, int width) {
+    SyntheticGraph graph = new SyntheticGraph();
+    for (int layer = 0; layer < layers; layer++) {
+      for (int from = 0; from < width; from++) {
+        ArtifactVersion library = layeredLibrary(layer, from);
+        graph.resolvedVersions.add(library);
+        graph.artifacts.add(library.getArtifact());
+        for (int to = 0; layer + 1 < layers && to < width; to++) {
+          graph.dependencies.add(new Dependency(
+              library, layeredLibrary(layer + 1, to).getArtifact(), "[" + VERSION + "]"));
+        }
+      }
+    }
+    ArtifactVersion project = new ArtifactVersion("gradle.project", "app-configuration-app", "0.0.0");
+    for (int i = 0; i < width; i++) {
+      graph.dependencies.add(
+          new Dependency(project, layeredLibrary(0, i).getArtifact(), "[" + VERSION + "]"));
+    }
+    return graph;
+  }
+
+  /**
+   * Returns an analyzer with the dependencies registered once per configuration, like the
+   * DependencyInspector registers them.
+   */
+  DependencyAnalyzer register() {
+    DependencyAnalyzer analyzer = new DependencyAnalyzer();
+    for (int configuration = 0; configuration < CONFIGURATIONS; configuration++) {
+      for (Dependency dependency : dependencies) {
+        analyzer.registerDependency(dependency);
+      }
+    }
+    return analyzer;
+  }
+
+  /**
+   * Returns an analyzer with the dependencies parsed from Gradle references and registered once
+   * per configuration, like the DependencyInspector parses and registers them. Each configuration
+   * parses its own copies of the references.
+   */
+  DependencyAnalyzer parseAndRegister() {
+    DependencyAnalyzer analyzer = new DependencyAnalyzer();
+    for (int configuration = 0; configuration < CONFIGURATIONS; configuration++) {
+      for (Dependency dependency : dependencies) {
+        ArtifactVersion from = ArtifactVersion.Companion.fromGradleRef(
+            dependency.getFromArtifactVersion().getGradleRef());
+        ArtifactVersion to = ArtifactVersion.Companion.fromGradleRef(
+            dependency.getToArtifact().getGradleRef() + ":"
+                + dependency.getToArtifactVersionString());
+        analyzer.registerDependency(Dependency.Companion.internFromArtifactVersions(from, to));
+      }
+    }
+    return analyzer;
+  }
+
+  private static ArtifactVersion library(int index) {
+    return new ArtifactVersion(GROUP_ID, "library" + index, VERSION);
+  }
+
+  private static ArtifactVersion layeredLibrary(int layer, int index) {
+    return new ArtifactVersion(GROUP_ID, "layer" + layer + "-" + index, VERSION);
+  }
+}
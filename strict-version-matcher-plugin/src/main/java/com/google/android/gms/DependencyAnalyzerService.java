@@ -0,0 +1,45 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.gms;
+
+import com.google.android.gms.dependencies.DependencyAnalyzer;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+/**
+ * Holds the dependency information of all the projects of a build that the plugin is applied to.
+ * <p>
+ * Gradle creates the service once per build and discards it when the build finishes, so a
+ * long-lived daemon doesn't keep the dependencies of earlier builds.
+ */
+public abstract class DependencyAnalyzerService
+    implements BuildService<BuildServiceParameters.None> {
+  static final String NAME_PREFIX = "strictVersionMatcherDependencyAnalyzer_";
+
+  /**
+   * Name the service is registered under. Projects may load the plugin in different class loaders,
+   * which cannot share a service instance, so the name includes the class loader.
+   */
+  static final String NAME =
+      NAME_PREFIX + DependencyAnalyzerService.class.getClassLoader().hashCode();
+
+  private final DependencyAnalyzer dependencyAnalyzer = new DependencyAnalyzer();
+
+  public DependencyAnalyzer getDependencyAnalyzer() {
+    return dependencyAnalyzer;
+  }
+}
@@ -1,9 +1,13 @@
 package com.google.android.gms.dependencies
 
 import com.google.common.annotations.VisibleForTesting
+import com.google.common.collect.ImmutableSet
+import com.google.common.collect.Interner
+import com.google.common.collect.Interners
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 import java.util.*
+import java.util.concurrent.ConcurrentHashMap
 
 // Utilizing Kotlin to eliminate boilerplate of data classes.
 
@@ -18,6 +22,15 @@ data class Artifact(val groupId: String, val artifactId: String) {
   }
 
   companion object {
+    private val interner: Interner<Artifact> = Interners.newWeakInterner()
+
+    /**
+     * Returns the canonical instance equal to the artifact. Instances are only kept while in use.
+     */
+    fun intern(artifact: Artifact): Artifact {
+      return interner.intern(artifact)
+    }
+
     fun fromGradleRef(referenceString: String): Artifact {
       val stringSplit = referenceString.split(":")
       if (stringSplit.size < 2) {
@@ -31,8 +44,12 @@ data class Artifact(val groupId: String, val artifactId: String) {
 
 data class ArtifactVersion(val groupId: String, val artifactId: String,
                            val version: String) {
+  /** Canonical artifact, looked up on first use since most parsed versions never need it. */
+  private var artifact: Artifact? = null
+
   fun getArtifact(): Artifact {
-    return Artifact(groupId = groupId, artifactId = artifactId)
+    return artifact ?: Artifact.intern(Artifact(groupId = groupId, artifactId = artifactId))
+        .also { artifact = it }
   }
 
   fun getGradleRef(): String {
@@ -40,6 +57,16 @@ data class ArtifactVersion(val groupId: String, val artifactId: String,
   }
 
   companion object {
+    private val interner: Interner<ArtifactVersion> = Interners.newWeakInterner()
+
+    /**
+     * Returns the canonical instance equal to the artifact version. Instances are only kept while
+     * in use.
+     */
+    fun intern(artifactVersion: ArtifactVersion): ArtifactVersion {
+      return interner.intern(artifactVersion)
+    }
+
     fun fromGradleRef(referenceString: String): ArtifactVersion {
       val stringSplit = referenceString.split(":")
       if (stringSplit.size < 3) {
@@ -62,7 +89,6 @@ data class ArtifactVersion(val groupId: String, val artifactId: String,
 
 data class Dependency(val fromArtifactVersion: ArtifactVersion, val toArtifact: Artifact,
                       val toArtifactVersionString: String) {
-  private val logger: Logger = LoggerFactory.getLogger(Dependency::class.java)
   private val versionEvaluator: VersionEvaluator
 
   init {
@@ -87,12 +113,26 @@ data class Dependency(val fromArtifactVersion: ArtifactVersion, val toArtifact:
   }
 
   companion object {
+    private val logger: Logger = LoggerFactory.getLogger(Dependency::class.java)
+    private val interner: Interner<Dependency> = Interners.newWeakInterner()
+
     fun fromArtifactVersions(fromArtifactVersion: ArtifactVersion,
                              toArtifactVersion: ArtifactVersion): Dependency {
       return Dependency(fromArtifactVersion = fromArtifactVersion,
           toArtifact = toArtifactVersion.getArtifact(),
           toArtifactVersionString = toArtifactVersion.version)
     }
+
+    /**
+     * Returns the canonical dependency between the artifact versions. Its artifact versions and
+     * artifact are canonical as well, so the many configurations and projects that register the
+     * same dependencies share one instance of each. Instances are only kept while in use.
+     */
+    fun internFromArtifactVersions(fromArtifactVersion: ArtifactVersion,
+                                   toArtifactVersion: ArtifactVersion): Dependency {
+      return interner.intern(fromArtifactVersions(ArtifactVersion.intern(fromArtifactVersion),
+          toArtifactVersion))
+    }
   }
 }
 
@@ -100,32 +140,55 @@ data class Dependency(val fromArtifactVersion: ArtifactVersion, val toArtifact:
  * Tracking object for dependencies to a Artifacts (unversioned).
  */
 class ArtifactDependencyManager {
-  /** Synchronized access to the dependencies to ensure elements aren't added while it's being iterated to provide a copy via the getter. */
-  private val dependencyLock = Object()
-  @VisibleForTesting internal val dependencies: HashMap<Artifact, HashSet<Dependency>> = HashMap()
+  /**
+   * Dependencies keyed by the artifact they point to. Each set is immutable and replaced when a new
+   * dependency is added, so readers get a consistent snapshot without copying it. Most additions
+   * are of dependencies that are already known, which don't replace the set.
+   */
+  @VisibleForTesting internal val dependencies: ConcurrentHashMap<Artifact, ImmutableSet<Dependency>> =
+      ConcurrentHashMap()
+  /** The same dependencies keyed by the artifact version they are from. */
+  private val dependenciesFrom: ConcurrentHashMap<ArtifactVersion, ImmutableSet<Dependency>> =
+      ConcurrentHashMap()
 
   fun addDependency(dependency: Dependency) {
-    synchronized(dependencyLock) {
-      var depSetForArtifact = dependencies.get(dependency.toArtifact)
-      if (depSetForArtifact == null) {
-        depSetForArtifact = HashSet()
-        dependencies[dependency.toArtifact] = depSetForArtifact
-      }
-      depSetForArtifact.add(dependency)
+    if (dependencies[dependency.toArtifact]?.contains(dependency) == true) {
+      return
     }
+    // Added by version first, so a dependency found by artifact is always found by version too.
+    add(dependenciesFrom, dependency.fromArtifactVersion, dependency)
+    add(dependencies, dependency.toArtifact, dependency)
     // TODO: Check for conflicting duplicate adds and fail.
   }
 
+  private fun <K : Any> add(dependencies: ConcurrentHashMap<K, ImmutableSet<Dependency>>, key: K,
+                            dependency: Dependency) {
+    dependencies.compute(key) { _, current ->
+      when {
+        current == null -> ImmutableSet.of(dependency)
+        current.contains(dependency) -> current
+        else -> ImmutableSet.builderWithExpectedSize<Dependency>(current.size + 1)
+            .addAll(current)
+            .add(dependency)
+            .build()
+      }
+    }
+  }
+
   /**
-   * Returns the current dependencies to the artifact.
+   * Returns the current dependencies to the artifact. The returned set is an immutable snapshot
+   * that later additions don't change.
    */
   fun getDependencies(artifact : Artifact): Collection<Dependency> {
-    synchronized(dependencyLock) {
-      if (this.dependencies[artifact] == null) {
-        return HashSet()
-      }
-      return HashSet(this.dependencies[artifact])
-    }
+    return this.dependencies[artifact] ?: ImmutableSet.of()
+  }
+
+  /**
+   * Returns the current dependencies from the artifact version. The returned set is an immutable
+   * snapshot that later additions don't change.
+   */
+  fun getDependencies(artifactVersion: ArtifactVersion): Collection<Dependency> {
+    return this.dependenciesFrom[artifactVersion] ?: ImmutableSet.of()
   }
 }
 
@@ -4,9 +4,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 
 /**
  * {Dependency} collector and analyzer for build artifacts.
@@ -20,7 +23,9 @@ import java.util.HashSet;
  * artifacts and then allow post-Gradle-dependency-resolution analysis to happen. An internal tree
  * is kept that allows version paths to the artifacts versions to be displayed
  * <p>
- * Thread-safety is provided via blocking and deep object copies.
+ * Thread-safe without blocking: the dependencies to each artifact are kept in an immutable set that
+ * is replaced when a dependency is added, so projects resolving configurations in parallel can
+ * register and analyze dependencies at the same time, and reads never copy.
  * <p>
  * TODO: Support SemVer qualifiers.
  */
@@ -32,7 +37,7 @@ public class DependencyAnalyzer {
   /**
    * Register a {Dependency}.
    */
-  synchronized void registerDependency(@Nonnull Dependency dependency) {
+  void registerDependency(@Nonnull Dependency dependency) {
     dependencyManager.addDependency(dependency);
   }
 
@@ -44,7 +49,7 @@ public class DependencyAnalyzer {
    * @return Dependencies found or an empty collection.
    */
   @Nonnull
-  synchronized Collection<Dependency> getActiveDependencies(
+  Collection<Dependency> getActiveDependencies(
       Collection<ArtifactVersion> versionedArtifacts) {
     // Summarize the artifacts in use.
     HashSet<Artifact> artifacts = new HashSet<>();
@@ -56,10 +61,9 @@ public class DependencyAnalyzer {
 
     // Find all the dependencies that we need to enforce.
     ArrayList<Dependency> dependencies = new ArrayList<>();
-    for (Artifact artifact : artifacts) {
-      for (Dependency dep : dependencyManager.getDependencies(artifact)) {
-        if (artifactVersions.contains(dep.getFromArtifactVersion()) &&
-            artifacts.contains(dep.getToArtifact())) {
+    for (ArtifactVersion version : artifactVersions) {
+      for (Dependency dep : dependencyManager.getDependencies(version)) {
+        if (artifacts.contains(dep.getToArtifact())) {
           dependencies.add(dep);
         }
       }
@@ -67,28 +71,80 @@ public class DependencyAnalyzer {
     return dependencies;
   }
 
-  synchronized Collection<Node> getPaths(Artifact artifact) {
+  /**
+   * Returns the dependencies registered between the resolved versions that the version their
+   * artifact was resolved to isn't compatible with.
+   * <p>
+   * Only the dependencies from the resolved versions are evaluated, so the work done for each
+   * resolved configuration doesn't grow with the dependencies registered by other configurations.
+   *
+   * @param resolvedVersions Resolved version of each artifact of a configuration.
+   *
+   * @return Incompatible dependencies found or an empty collection.
+   */
+  @Nonnull
+  Collection<Dependency> getIncompatibleDependencies(
+      @Nonnull Map<Artifact, ArtifactVersion> resolvedVersions) {
+    ArrayList<Dependency> incompatibleDependencies = null;
+    for (ArtifactVersion version : resolvedVersions.values()) {
+      for (Dependency dep : dependencyManager.getDependencies(version)) {
+        ArtifactVersion resolvedVersion = resolvedVersions.get(dep.getToArtifact());
+        if (resolvedVersion != null && !dep.isVersionCompatible(resolvedVersion.getVersion())) {
+          if (incompatibleDependencies == null) {
+            incompatibleDependencies = new ArrayList<>();
+          }
+          incompatibleDependencies.add(dep);
+        }
+      }
+    }
+    return incompatibleDependencies != null
+        ? incompatibleDependencies : Collections.emptyList();
+  }
+
+  /**
+   * Returns the shortest known path from each direct dependency of a project to any version of the
+   * artifact. Each path is a {Node} whose dependency is the direct dependency, followed by its
+   * children down to a dependency on the artifact.
+   * <p>
+   * The paths are found with a breadth-first search up the registered dependencies that visits
+   * each artifact version once, so it takes time linear in the size of the graph even when the
+   * number of distinct paths is exponential. Paths share their common tails.
+   */
+  Collection<Node> getPaths(Artifact artifact) {
     ArrayList<Node> pathsToReturn = new ArrayList<>();
-    Collection<Dependency> deps = dependencyManager.getDependencies(artifact);
-    for (Dependency dep : deps) {
-      // Proceed to report back info.
-      getNode(pathsToReturn, new Node(null, dep), dep.getFromArtifactVersion());
+    // Direct dependencies that a path was found to, the first path found being the shortest.
+    HashSet<Dependency> directDependencies = new HashSet<>();
+    HashSet<ArtifactVersion> visited = new HashSet<>();
+    ArrayDeque<Node> queue = new ArrayDeque<>();
+    for (Dependency dep : dependencyManager.getDependencies(artifact)) {
+      visitNode(pathsToReturn, directDependencies, visited, queue, new Node(null, dep));
+    }
+    while (!queue.isEmpty()) {
+      Node n = queue.poll();
+      ArtifactVersion artifactVersion = n.getDependency().getFromArtifactVersion();
+      for (Dependency dep : dependencyManager.getDependencies(artifactVersion.getArtifact())) {
+        if (dep.isVersionCompatible(artifactVersion.getVersion())) {
+          visitNode(pathsToReturn, directDependencies, visited, queue, new Node(n, dep));
+        }
+      }
     }
     return pathsToReturn;
   }
 
-  private synchronized void getNode(ArrayList<Node> terminalPathList, Node n,
-                                    ArtifactVersion artifactVersion) {
-    Collection<Dependency> deps = dependencyManager.getDependencies(artifactVersion.getArtifact());
-    if (deps.size() < 1) {
-      terminalPathList.add(n);
-      return;
-    }
-    for (Dependency dep : deps) {
-      if (dep.isVersionCompatible(artifactVersion.getVersion())) {
-        // Proceed to report back info.
-        getNode(terminalPathList, new Node(n, dep), dep.getFromArtifactVersion());
+  /**
+   * Adds the path n to the paths if its dependency is from an artifact nothing depends on, a
+   * project, or queues it to be continued if its dependency is from an artifact version that no
+   * shorter path went through.
+   */
+  private void visitNode(ArrayList<Node> terminalPathList, HashSet<Dependency> directDependencies,
+                         HashSet<ArtifactVersion> visited, ArrayDeque<Node> queue, Node n) {
+    ArtifactVersion artifactVersion = n.getDependency().getFromArtifactVersion();
+    if (dependencyManager.getDependencies(artifactVersion.getArtifact()).isEmpty()) {
+      if (directDependencies.add(n.getDependency())) {
+        terminalPathList.add(n);
       }
+    } else if (visited.add(artifactVersion)) {
+      queue.add(n);
     }
   }
 }
@@ -1,9 +1,13 @@
 package com.google.android.gms.dependencies;
 
 import org.gradle.api.GradleException;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentSelector;
 import org.gradle.api.artifacts.DependencyResolutionListener;
 import org.gradle.api.artifacts.ResolvableDependencies;
+import org.gradle.api.artifacts.VersionConstraint;
 import org.gradle.api.artifacts.result.DependencyResult;
 import org.gradle.api.artifacts.result.ResolutionResult;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
@@ -36,6 +40,10 @@ import java.util.HashSet;
  */
 public class DependencyInspector implements DependencyResolutionListener {
   private static final String GRADLE_PROJECT = "gradle.project";
+  /**
+   * Number of dependency paths to an artifact with an issue that are logged.
+   */
+  private static final int MAX_LOGGED_PATHS = 25;
   private static Logger logger = LoggerFactory.getLogger(DependencyInspector.class);
   private final DependencyAnalyzer dependencyAnalyzer;
   private final String projectName;
@@ -97,65 +105,107 @@ public class DependencyInspector implements DependencyResolutionListener {
   private void registerDependencies(@Nonnull ResolvableDependencies resolvableDependencies,
                                     @Nonnull String projectName, @Nonnull String taskName) {
     ResolutionResult resolutionResult = resolvableDependencies.getResolutionResult();
-    String depFromString= "";
+    // The dependencies of a component are next to each other, so the artifact version they are
+    // from is only looked up when the component changes.
+    ResolvedComponentResult lastFrom = null;
+    ArtifactVersion fromDep = null;
     // Record all of the dependencies into the tracker.
     for (DependencyResult depResult : resolutionResult.getAllDependencies()) {
-      ArtifactVersion fromDep;
       // Notes regarding getAllDependencies()
       // * it contains all dep links within each project.
       // * it contains links that may not be needed after the final
       //   versions are determined.
       // * depResult.getFrom() == null represents a direct dep from the
       //   project being evaluated.
-      if (depResult.getFrom() == null ||
-          "".equals(depResult.getFrom().getId().getDisplayName()) ||
-          "project :".equals(depResult.getFrom().getId().getDisplayName())) {
-        // Register the dep from the project directly.
-        fromDep = ArtifactVersion.Companion.fromGradleRef(
-            GRADLE_PROJECT + ":" + projectName + "-" + taskName + ":0.0.0");
-      } else {
-         depFromString = ("" + depResult.getFrom().getId().getDisplayName());
-        if (depFromString.startsWith("project ")) {
-          // TODO(paulrashidi): Figure out if a third level dependency shows depFromString.
-          // In a project with other project dependencies the dep
-          // string will be "project :module1"
-          // Sometimes depFromString is just "project:" and in that case we want the name
-          // to just be an empty string.
-          String[] splitDepName = depFromString.split(":");
-          String depName = splitDepName.length > 1 ? splitDepName[1] : "module";
-          // Register the dep from another module in the project.
-          fromDep = ArtifactVersion.Companion.fromGradleRef(
-              GRADLE_PROJECT + ":" + projectName + "-" + taskName + "-" + depName + ":0.0.0");
-        } else {
-          try {
-            fromDep = ArtifactVersion.Companion.fromGradleRef(depFromString);
-          } catch (IllegalArgumentException iae) {
-            logger.info("Skipping misunderstood FROM dep string: " + depFromString);
-            continue;
-          }
+      if (fromDep == null || depResult.getFrom() != lastFrom) {
+        lastFrom = depResult.getFrom();
+        fromDep = getFromArtifactVersion(lastFrom, projectName, taskName);
+        if (fromDep == null) {
+          logger.info("Skipping misunderstood FROM dep string: " +
+              lastFrom.getId().getDisplayName());
+          continue;
         }
       }
-      if (depResult.getRequested() == null) {
+      ComponentSelector requested = depResult.getRequested();
+      if (requested == null) {
         // Prevent odd build setups from throwing errors.
         continue;
       }
       ArtifactVersion toDep;
-      String toDepString = depResult.getRequested().toString();
-      if (depResult.getRequested() instanceof ModuleComponentSelector) {
-        ModuleComponentSelector selector = (ModuleComponentSelector) depResult.getRequested();
-        if (!"".equals(selector.getVersionConstraint().getStrictVersion())){
-          toDepString = selector.getGroup() + ":" + selector.getModule() + ":[" + selector.getVersionConstraint().getStrictVersion() + "]";
-        }
+      if (requested instanceof ModuleComponentSelector) {
+        toDep = getArtifactVersion((ModuleComponentSelector) requested);
+      } else {
+        toDep = ArtifactVersion.Companion.fromGradleRefOrNull(requested.toString());
       }
-      try {
-        toDep = ArtifactVersion.Companion.fromGradleRef(toDepString);
-      } catch (IllegalArgumentException iae) {
-        logger.info("Skipping misunderstood TO dep string: " + toDepString);
+      if (toDep == null) {
+        logger.info("Skipping misunderstood TO dep string: " + requested);
         continue;
       }
       dependencyAnalyzer.registerDependency(
-          Dependency.Companion.fromArtifactVersions(fromDep, toDep));
+          Dependency.Companion.internFromArtifactVersions(fromDep, toDep));
+    }
+  }
+
+  /**
+   * Returns the artifact version that the dependencies of a component are registered from, or null
+   * if the component isn't understood.
+   */
+  @Nullable
+  private static ArtifactVersion getFromArtifactVersion(@Nullable ResolvedComponentResult from,
+                                                        @Nonnull String projectName,
+                                                        @Nonnull String taskName) {
+    if (from != null && from.getId() instanceof ModuleComponentIdentifier) {
+      return getArtifactVersion((ModuleComponentIdentifier) from.getId());
+    }
+    String depFromString = from == null ? "" : from.getId().getDisplayName();
+    if ("".equals(depFromString) || "project :".equals(depFromString)) {
+      // Register the dep from the project directly.
+      return new ArtifactVersion(GRADLE_PROJECT, projectName + "-" + taskName, "0.0.0");
+    }
+    if (depFromString.startsWith("project ")) {
+      // TODO(paulrashidi): Figure out if a third level dependency shows depFromString.
+      // In a project with other project dependencies the dep
+      // string will be "project :module1"
+      // Sometimes depFromString is just "project:" and in that case we want the name
+      // to just be an empty string.
+      int nameStart = depFromString.indexOf(':') + 1;
+      int nameEnd = depFromString.indexOf(':', nameStart);
+      String depName = nameStart == 0 ? "module" : depFromString.substring(
+          nameStart, nameEnd < 0 ? depFromString.length() : nameEnd);
+      // Register the dep from another module in the project.
+      return new ArtifactVersion(
+          GRADLE_PROJECT, projectName + "-" + taskName + "-" + depName, "0.0.0");
     }
+    return ArtifactVersion.Companion.fromGradleRefOrNull(depFromString);
+  }
+
+  @Nonnull
+  private static ArtifactVersion getArtifactVersion(@Nonnull ModuleComponentIdentifier id) {
+    return new ArtifactVersion(id.getGroup(), id.getModule(), id.getVersion());
+  }
+
+  /**
+   * Returns the artifact version requested by the selector, or null if it requests no version.
+   * Strict versions are requested as exact versions, e.g. "[16.0.0]", and other versions as
+   * Gradle displays them.
+   */
+  @Nullable
+  private static ArtifactVersion getArtifactVersion(@Nonnull ModuleComponentSelector selector) {
+    VersionConstraint constraint = selector.getVersionConstraint();
+    String version;
+    if (!"".equals(constraint.getStrictVersion())) {
+      version = "[" + constraint.getStrictVersion() + "]";
+    } else if ("".equals(constraint.getPreferredVersion()) &&
+        constraint.getRejectedVersions().isEmpty() &&
+        (constraint.getBranch() == null || "".equals(constraint.getBranch()))) {
+      version = constraint.getRequiredVersion();
+    } else {
+      version = constraint.getDisplayName();
+    }
+    if ("".equals(version)) {
+      return null;
+    }
+    return new ArtifactVersion(selector.getGroup(), selector.getModule(), version);
   }
 
   @Override
@@ -189,8 +239,10 @@ public class DependencyInspector implements DependencyResolutionListener {
     HashMap<Artifact, ArtifactVersion> resolvedVersions = new HashMap<>();
     for (ResolvedComponentResult resolvedComponentResult :
         resolutionResult.getAllComponents()) {
-      ArtifactVersion version = ArtifactVersion.Companion.fromGradleRefOrNull(
-          resolvedComponentResult.getId().toString());
+      ComponentIdentifier id = resolvedComponentResult.getId();
+      ArtifactVersion version = id instanceof ModuleComponentIdentifier
+          ? getArtifactVersion((ModuleComponentIdentifier) id)
+          : ArtifactVersion.Companion.fromGradleRefOrNull(id.toString());
       if (version != null) {
         resolvedVersions.put(version.getArtifact(), version);
       }
@@ -201,36 +253,36 @@ public class DependencyInspector implements DependencyResolutionListener {
       return;
     }
 
-    // Retrieve dependencies that apply to the resolved dep set.
-    Collection<Dependency> activeDeps = dependencyAnalyzer.getActiveDependencies(
-        resolvedVersions.values());
-    // Validate each of the dependencies that should apply.
-    for (Dependency dep : activeDeps) {
+    // Retrieve the dependencies between the resolved versions that aren't being honored.
+    Collection<Dependency> incompatibleDeps = dependencyAnalyzer.getIncompatibleDependencies(
+        resolvedVersions);
+    for (Dependency dep : incompatibleDeps) {
+      // This means a resolved version failed a dependency rule.
       ArtifactVersion resolvedVersion = resolvedVersions.get(dep.getToArtifact());
 
-      // Check whether dependency is still valid.
-      if (!dep.isVersionCompatible(resolvedVersion.getVersion())) {
-        // This means a resolved version failed a dependency rule.
+      logger.warn("Dependency resolved to an incompatible version: " + dep);
 
-        logger.warn("Dependency resolved to an incompatible version: " + dep);
+      // TODO: Warn, not fail, when the Major version boundaries are breached.
+      // TODO: Experiment with collecting all issues and reporting them at once.
+      Collection<Node> depsPaths = dependencyAnalyzer.getPaths(
+          resolvedVersion.getArtifact());
 
-        // TODO: Warn, not fail, when the Major version boundaries are breached.
-        // TODO: Experiment with collecting all issues and reporting them at once.
-        Collection<Node> depsPaths = dependencyAnalyzer.getPaths(
-            resolvedVersion.getArtifact());
-
-        // Print extended path information at INFO level.
-        logger.info("Dependency Resolution Help: Displaying all currently known " +
-            "paths to any version of the dependency: " + dep.getToArtifact());
-        logger.info("NOTE: com.google.android.gms translated to c.g.a.g for brevity. " +
-            "Same for com.google.firebase -> c.g.f");
-        // TODO: The depPaths nodes need to be consolidated prior to display.
-        for (Node n : depsPaths) {
-          printNode(1, n);
+      // Print extended path information at INFO level.
+      logger.info("Dependency Resolution Help: Displaying the shortest known path " +
+          "from each direct dependency to any version of the dependency: " +
+          dep.getToArtifact());
+      logger.info("NOTE: com.google.android.gms translated to c.g.a.g for brevity. " +
+          "Same for com.google.firebase -> c.g.f");
+      int loggedPaths = 0;
+      for (Node n : depsPaths) {
+        if (loggedPaths++ == MAX_LOGGED_PATHS) {
+          logger.info("... and " + (depsPaths.size() - MAX_LOGGED_PATHS) + " more paths.");
+          break;
         }
-
-        throw new GradleException(getErrorMessage(dep, resolvedVersion, depsPaths));
+        printNode(1, n);
       }
+
+      throw new GradleException(getErrorMessage(dep, resolvedVersion, depsPaths));
     }
   }
 
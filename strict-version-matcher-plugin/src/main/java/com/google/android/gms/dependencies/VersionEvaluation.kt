@@ -1,5 +1,8 @@
 package com.google.android.gms.dependencies
 
+import com.google.common.collect.Interner
+import com.google.common.collect.Interners
+
 interface VersionEvaluator {
   fun isCompatible(version: String): Boolean
 }
@@ -10,18 +13,27 @@ interface VersionEvaluator {
  * TODO: Code formatting.
  */
 object VersionEvaluators {
+  private val alwaysCompatibleEvaluator = AlwaysCompatibleEvaluator()
+  /** Exact version evaluators in use. Evaluators no dependency refers to can be collected. */
+  private val exactVersionEvaluators: Interner<ExactVersionEvaluator> =
+      Interners.newWeakInterner()
 
+  /**
+   * Returns an evaluator of versions against versionString. Evaluators are stateless, so the same
+   * instance is returned for the same version string.
+   */
   fun getEvaluator(versionString: String, enableStrictMatching: Boolean): VersionEvaluator {
     val hasVersionRange = versionString.indexOf(",") > 0 || versionString.indexOf(")") > 0 ||
                                    versionString.indexOf("(") > 0
     return if (enableStrictMatching && versionString.startsWith("[") && versionString.endsWith("]")) {
-      ExactVersionEvaluator(versionString.substring(1, versionString.length - 1))
+      exactVersionEvaluators.intern(
+          ExactVersionEvaluator(versionString.substring(1, versionString.length - 1)))
     } else if (enableStrictMatching && !hasVersionRange) {
       // TODO: Re-enable SemVer validator.
       // SemVerVersionEvaluator(versionString)
-      AlwaysCompatibleEvaluator()
+      alwaysCompatibleEvaluator
     } else {
-      AlwaysCompatibleEvaluator()
+      alwaysCompatibleEvaluator
     }
 
   }
@@ -32,10 +44,18 @@ object VersionEvaluators {
     }
   }
 
-  class ExactVersionEvaluator(internal var versionString: String) : VersionEvaluator {
+  class ExactVersionEvaluator(internal val versionString: String) : VersionEvaluator {
     override fun isCompatible(version: String): Boolean {
       return version == versionString
     }
+
+    override fun equals(other: Any?): Boolean {
+      return other is ExactVersionEvaluator && other.versionString == versionString
+    }
+
+    override fun hashCode(): Int {
+      return versionString.hashCode()
+    }
   }
 
   class SemVerVersionEvaluator(versionString: String) : VersionEvaluator {
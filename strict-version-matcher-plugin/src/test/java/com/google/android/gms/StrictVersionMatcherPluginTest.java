@@ -17,14 +17,213 @@
 package com.google.android.gms;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.HashMap;
-import java.util.stream.Collectors;
-import org.gradle.api.GradleException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class StrictVersionMatcherPluginTest {
 
+  /**
+   * Root build script of a build with an app project that depends on a library project. It keeps
+   * a weak reference to the DependencyAnalyzer of each build in a thread, which lives as long as
+   * the daemon, and prints how many builds ran in the daemon before and how many of their
+   * analyzers are still reachable.
+   */
+  private static final String ROOT_BUILD_SCRIPT = "plugins {\n"
+      + "  id 'com.google.android.gms.strict-version-matcher-plugin' apply false\n"
+      + "}\n"
+      + "class AnalyzerReferences extends Thread {\n"
+      + "  final List analyzers = Collections.synchronizedList(new ArrayList())\n"
+      + "  AnalyzerReferences() { super('analyzer-references'); daemon = true }\n"
+      + "  void run() { Thread.sleep(Long.MAX_VALUE) }\n"
+      + "}\n"
+      + "def references = Thread.getAllStackTraces().keySet()\n"
+      + "    .find { it.name == 'analyzer-references' }\n"
+      + "if (references == null) {\n"
+      + "  references = new AnalyzerReferences()\n"
+      + "  references.start()\n"
+      + "}\n"
+      + "def analyzers = references.analyzers\n"
+      + "for (int i = 0; i < 10 && analyzers.any { it.get() != null }; i++) {\n"
+      + "  System.gc()\n"
+      + "  Thread.sleep(100)\n"
+      + "}\n"
+      + "println 'PREVIOUS_BUILDS=' + analyzers.size()\n"
+      + "println 'RETAINED_ANALYZERS=' + analyzers.count { it.get() != null }\n"
+      + "subprojects {\n"
+      + "  apply plugin: 'java-library'\n"
+      + "  apply plugin: 'com.google.android.gms.strict-version-matcher-plugin'\n"
+      + "}\n"
+      + "project(':app') {\n"
+      + "  dependencies { implementation project(':lib') }\n"
+      + "}\n"
+      + "gradle.projectsEvaluated {\n"
+      + "  def service = gradle.sharedServices.registrations\n"
+      + "      .find { it.name.startsWith('" + DependencyAnalyzerService.NAME_PREFIX + "') }\n"
+      + "      .service.get()\n"
+      + "  analyzers.add(new java.lang.ref.WeakReference(service.dependencyAnalyzer))\n"
+      + "}\n";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void apply_buildsInSameDaemon_doNotRetainDependenciesOfEarlierBuilds() throws Exception {
+    File projectDir = temporaryFolder.newFolder("project");
+    Files.createDirectory(new File(projectDir, "app").toPath());
+    Files.createDirectory(new File(projectDir, "lib").toPath());
+    write(new File(projectDir, "settings.gradle"), "include 'app', 'lib'\n");
+    write(new File(projectDir, "build.gradle"), ROOT_BUILD_SCRIPT);
+    GradleRunner runner = GradleRunner.create()
+        .withProjectDir(projectDir)
+        .withTestKitDir(temporaryFolder.newFolder("testkit"))
+        .withPluginClasspath()
+        .withArguments(":app:dependencies", "--configuration", "compileClasspath");
+
+    for (int build = 0; build < 3; build++) {
+      BuildResult result = runner.build();
+
+      assertThat(result.getOutput()).contains("PREVIOUS_BUILDS=" + build);
+      assertThat(result.getOutput()).contains("RETAINED_ANALYZERS=0");
+    }
+  }
+
+  @Test
+  public void apply_pluginInSeparateClassLoaders_registersServicePerClassLoader() throws Exception {
+    File projectDir = temporaryFolder.newFolder("project");
+    Files.createDirectory(new File(projectDir, "app").toPath());
+    Files.createDirectory(new File(projectDir, "lib").toPath());
+    write(new File(projectDir, "settings.gradle"), "include 'app', 'lib'\n");
+    // Both projects depend on a library that depends on an exact version of another library, but
+    // resolve a newer version of it.
+    File repository = new File(projectDir, "repo");
+    writeArtifact(repository, "play-services-foo", "1.0.0", "play-services-base", "[1.0.0]");
+    writeArtifact(repository, "play-services-base", "1.0.0", null, null);
+    writeArtifact(repository, "play-services-base", "2.0.0", null, null);
+    String conflictingDependencies = "repositories {\n"
+        + "  maven {\n"
+        + "    url = rootProject.file('repo')\n"
+        + "    metadataSources { gradleMetadata() }\n"
+        + "  }\n"
+        + "}\n"
+        + "dependencies {\n"
+        + "  implementation 'com.google.android.gms:play-services-foo:1.0.0'\n"
+        + "  implementation 'com.google.android.gms:play-services-base:2.0.0'\n"
+        + "}\n"
+        + "tasks.register('resolveCompileClasspath') {\n"
+        + "  def compileClasspath = configurations.compileClasspath\n"
+        + "  doLast { compileClasspath.files }\n"
+        + "}\n"
+        // The service of the class loader that loaded the plugin of this project.
+        + "def loader = plugins\n"
+        + "    .findPlugin('com.google.android.gms.strict-version-matcher-plugin')\n"
+        + "    .getClass().classLoader\n"
+        + "println \"SERVICE_OF_${project.name}=\" + (gradle.sharedServices.registrations\n"
+        + "    .findByName('" + DependencyAnalyzerService.NAME_PREFIX + "' + loader.hashCode())\n"
+        + "    != null)\n";
+    // The app project applies the plugin from the injected plugin classpath. The library project
+    // loads it from its own build script classpath, which has another entry so that Gradle does
+    // not reuse the class loader of the app project.
+    write(new File(projectDir, "app/build.gradle"), "plugins {\n"
+        + "  id 'java-library'\n"
+        + "  id 'com.google.android.gms.strict-version-matcher-plugin'\n"
+        + "}\n"
+        + "dependencies { implementation project(':lib') }\n"
+        + conflictingDependencies);
+    Files.createDirectory(new File(projectDir, "lib/classes").toPath());
+    write(new File(projectDir, "lib/plugin-classpath.txt"), readPluginClasspath());
+    write(new File(projectDir, "lib/build.gradle"), "buildscript {\n"
+        + "  dependencies {\n"
+        + "    classpath files(file('plugin-classpath.txt').readLines(), 'classes')\n"
+        + "  }\n"
+        + "}\n"
+        + "apply plugin: 'java-library'\n"
+        + "apply plugin: 'com.google.android.gms.strict-version-matcher-plugin'\n"
+        + conflictingDependencies);
+    write(new File(projectDir, "build.gradle"), "gradle.projectsEvaluated {\n"
+        + "  def services = gradle.sharedServices.registrations\n"
+        + "      .findAll { it.name.startsWith('" + DependencyAnalyzerService.NAME_PREFIX + "') }\n"
+        + "      .collect { it.service.get() }\n"
+        + "  println 'SERVICES=' + services.size()\n"
+        + "  println 'DISTINCT_SERVICES=' + services.collect { System.identityHashCode(it) }\n"
+        + "      .unique().size()\n"
+        + "}\n");
+
+    BuildResult result = GradleRunner.create()
+        .withProjectDir(projectDir)
+        .withTestKitDir(temporaryFolder.newFolder("testkit"))
+        .withPluginClasspath()
+        .withArguments(
+            ":app:resolveCompileClasspath", ":lib:resolveCompileClasspath", "--continue")
+        .buildAndFail();
+
+    assertThat(result.getOutput()).contains("SERVICES=2");
+    assertThat(result.getOutput()).contains("DISTINCT_SERVICES=2");
+    assertThat(result.getOutput()).contains("SERVICE_OF_app=true");
+    assertThat(result.getOutput()).contains("SERVICE_OF_lib=true");
+    // Gradle wraps long lines of the failures, so only the start of them is checked.
+    for (String project : new String[] {"app", "lib"}) {
+      assertThat(result.getOutput()).contains(
+          "In project '" + project + "' a resolved Google Play services library dependency");
+      assertThat(result.getOutput()).contains("-- Project '" + project
+          + "' depends onto com.google.android.gms:play-services-foo@1.0.0");
+    }
+    assertThat(result.getOutput()).contains("Dependency failing: "
+        + "com.google.android.gms:play-services-foo:1.0.0 -> "
+        + "com.google.android.gms:play-services-base@[1.0.0]");
+  }
+
+  /**
+   * Writes the Gradle module metadata and jar of com.google.android.gms:artifactId:version to
+   * repository, with a dependency on dependencyId at dependencyVersion if it is not null. Module
+   * metadata is used since Gradle reads an exact version like "[1.0.0]" in a POM file as a plain
+   * version.
+   */
+  private static void writeArtifact(File repository, String artifactId, String version,
+      String dependencyId, String dependencyVersion) throws IOException {
+    File dir = new File(repository, "com/google/android/gms/" + artifactId + "/" + version);
+    Files.createDirectories(dir.toPath());
+    String fileName = artifactId + "-" + version;
+    String dependencies = dependencyId == null ? "" : "\"dependencies\": [{"
+        + "\"group\": \"com.google.android.gms\", \"module\": \"" + dependencyId + "\", "
+        + "\"version\": {\"requires\": \"" + dependencyVersion + "\"}}], ";
+    write(new File(dir, fileName + ".module"), "{\"formatVersion\": \"1.1\", "
+        + "\"component\": {\"group\": \"com.google.android.gms\", "
+        + "\"module\": \"" + artifactId + "\", \"version\": \"" + version + "\"}, "
+        + "\"variants\": [{\"name\": \"apiElements\", "
+        + "\"attributes\": {\"org.gradle.usage\": \"java-api\", "
+        + "\"org.gradle.category\": \"library\", "
+        + "\"org.gradle.libraryelements\": \"jar\"}, "
+        + dependencies
+        + "\"files\": [{\"name\": \"" + fileName + ".jar\", "
+        + "\"url\": \"" + fileName + ".jar\"}]}]}\n");
+    write(new File(dir, fileName + ".jar"), "");
+  }
+
+  /**
+   * Returns the classpath of the plugin under test, one entry per line, from the metadata that the
+   * java-gradle-plugin writes for TestKit.
+   */
+  private static String readPluginClasspath() throws IOException {
+    Properties metadata = new Properties();
+    try (InputStream input = StrictVersionMatcherPluginTest.class.getClassLoader()
+        .getResourceAsStream("plugin-under-test-metadata.properties")) {
+      metadata.load(input);
+    }
+    return String.join("\n",
+        metadata.getProperty("implementation-classpath").split(File.pathSeparator));
+  }
+
+  private static void write(File file, String content) throws IOException {
+    Files.write(file.toPath(), content.getBytes(UTF_8));
+  }
 }
@@ -37,4 +37,30 @@ class DataObjectsTest {
 
     Assert.assertEquals(1, manager.dependencies[ARTIFACT_B_100.getArtifact()]?.size)
   }
+
+  @Test
+  fun testInternFromArtifactVersions_equalDependencies_returnsSameInstances() {
+    val first = Dependency.internFromArtifactVersions(ArtifactVersion.fromGradleRef("a:a:1.0.0"),
+        ArtifactVersion.fromGradleRef("b:b:[1.0.0]"))
+    val second = Dependency.internFromArtifactVersions(ArtifactVersion.fromGradleRef("a:a:1.0.0"),
+        ArtifactVersion.fromGradleRef("b:b:[1.0.0]"))
+
+    Assert.assertSame(first, second)
+    Assert.assertSame(first.fromArtifactVersion, second.fromArtifactVersion)
+    Assert.assertSame(first.toArtifact, ArtifactVersion.fromGradleRef("b:b:2.0.0").getArtifact())
+  }
+
+  @Test
+  fun testGetArtifact_returnsSameInstance() {
+    Assert.assertSame(ARTIFACT_A_100.getArtifact(), ARTIFACT_A_100.getArtifact())
+    Assert.assertSame(ARTIFACT_A_100.getArtifact(), ARTIFACT_A_200.getArtifact())
+  }
+
+  @Test
+  fun testGetEvaluator_sameVersionString_returnsSameInstance() {
+    Assert.assertSame(VersionEvaluators.getEvaluator("[1.0.0]", true),
+        VersionEvaluators.getEvaluator("[1.0.0]", true))
+    Assert.assertSame(VersionEvaluators.getEvaluator("1.0.0", true),
+        VersionEvaluators.getEvaluator("2.0.0", false))
+  }
 }
@@ -8,7 +8,16 @@ import org.junit.runners.JUnit4;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.android.gms.dependencies.TestUtilKt.*;
 
@@ -31,6 +40,11 @@ public class DependencyAnalyzerTest {
      * C depends on D at a different exact version (using "[" and "]") than B.
      */
     private static final List<Dependency> simpleExactVersionInValidDiamondDependency = new ArrayList<>();
+    /**
+     * A project that nothing depends on, like those the DependencyInspector registers.
+     */
+    private static final ArtifactVersion PROJECT =
+        ArtifactVersion.Companion.fromGradleRef("gradle.project:app-releaseCompileClasspath-app:0.0.0");
 
     static {
         simpleValidDiamondDependency.addAll(Lists.newArrayList(
@@ -89,4 +103,171 @@ public class DependencyAnalyzerTest {
                 ARTIFACT_A_100, ARTIFACT_B_100, ARTIFACT_C_200, ARTIFACT_D_100));
         Assert.assertEquals("Exactly 4 dependencies should be active.", 4, deps.size());
     }
+
+    @Test
+    public void testGetIncompatibleDependencies_ExactVersionNotResolved_ReturnsDependency() {
+        DependencyAnalyzer dependencyAnalyzer = new DependencyAnalyzer();
+        for (Dependency dep : simpleExactVersionInValidDiamondDependency) {
+            dependencyAnalyzer.registerDependency(dep);
+        }
+        Map<Artifact, ArtifactVersion> resolvedVersions = resolve(
+            ARTIFACT_A_100, ARTIFACT_B_100, ARTIFACT_C_200, ARTIFACT_D_200);
+
+        Collection<Dependency> deps = dependencyAnalyzer.getIncompatibleDependencies(resolvedVersions);
+        Assert.assertEquals(Lists.newArrayList(
+            new Dependency(ARTIFACT_B_100, ARTIFACT_D_100.getArtifact(), "[1.0.0]")), deps);
+    }
+
+    @Test
+    public void testGetIncompatibleDependencies_DependenciesFromUnresolvedVersions_AreIgnored() {
+        DependencyAnalyzer dependencyAnalyzer = new DependencyAnalyzer();
+        for (Dependency dep : simpleExactVersionInValidDiamondDependency) {
+            dependencyAnalyzer.registerDependency(dep);
+        }
+
+        // Only C 2.0.0 depends on D 2.0.0, so B 1.0.0 -> D [1.0.0] isn't evaluated.
+        Assert.assertTrue(dependencyAnalyzer.getIncompatibleDependencies(resolve(
+            ARTIFACT_A_100, ARTIFACT_C_200, ARTIFACT_D_200)).isEmpty());
+        Assert.assertTrue(dependencyAnalyzer.getIncompatibleDependencies(resolve(
+            ARTIFACT_A_200, ARTIFACT_B_200, ARTIFACT_D_100)).isEmpty());
+    }
+
+    @Test
+    public void testRegisterDependency_ConcurrentRegistrationLosesNoDependencies()
+        throws Exception {
+        DependencyAnalyzer dependencyAnalyzer = new DependencyAnalyzer();
+        int threads = 8;
+        int dependenciesPerThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Set<ArtifactVersion>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String fromArtifactId = "from" + t;
+            futures.add(executor.submit(() -> {
+                Set<ArtifactVersion> versions = new HashSet<>();
+                start.await();
+                for (int i = 0; i < dependenciesPerThread; i++) {
+                    ArtifactVersion from =
+                        new ArtifactVersion("com.google.firebase", fromArtifactId, "1." + i);
+                    // All threads add to the dependencies of the same few artifacts.
+                    ArtifactVersion to =
+                        new ArtifactVersion("com.google.android.gms", "to" + (i % 10), "1.0.0");
+                    dependencyAnalyzer.registerDependency(
+                        Dependency.Companion.fromArtifactVersions(from, to));
+                    versions.add(from);
+                    versions.add(to);
+                    if (i % 100 == 0) {
+                        // Reads while other threads register must not fail.
+                        dependencyAnalyzer.getActiveDependencies(versions);
+                    }
+                }
+                return versions;
+            }));
+        }
+        start.countDown();
+        Set<ArtifactVersion> versions = new HashSet<>();
+        try {
+            for (Future<Set<ArtifactVersion>> future : futures) {
+                versions.addAll(future.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Collection<Dependency> deps = dependencyAnalyzer.getActiveDependencies(versions);
+        Assert.assertEquals("Every registered dependency should be active.",
+            threads * dependenciesPerThread, deps.size());
+    }
+
+    @Test
+    public void testGetPaths_DiamondDependency_ReturnsShortestPath() {
+        DependencyAnalyzer dependencyAnalyzer = new DependencyAnalyzer();
+        Dependency projectToA = Dependency.Companion.fromArtifactVersions(PROJECT, ARTIFACT_A_100);
+        dependencyAnalyzer.registerDependency(projectToA);
+        for (Dependency dep : simpleValidDiamondDependency) {
+            dependencyAnalyzer.registerDependency(dep);
+        }
+
+        Collection<Node> paths = dependencyAnalyzer.getPaths(ARTIFACT_D_100.getArtifact());
+
+        Assert.assertEquals("Only one direct dependency leads to D:\n" + paths, 1, paths.size());
+        Node path = paths.iterator().next();
+        Assert.assertEquals(projectToA, path.getDependency());
+        Assert.assertEquals(3, pathLength(path));
+        Assert.assertEquals(ARTIFACT_D_100.getArtifact(), lastNode(path).getDependency().getToArtifact());
+    }
+
+    @Test
+    public void testGetPaths_DenseLayeredGraph_ReturnsPathPerDirectDependency() {
+        // Every library depends on every library of the next layer, so there are
+        // WIDTH^LAYERS paths from the project to the last layer.
+        int layers = 40;
+        int width = 5;
+        DependencyAnalyzer dependencyAnalyzer = new DependencyAnalyzer();
+        for (int layer = 0; layer < layers - 1; layer++) {
+            for (int from = 0; from < width; from++) {
+                for (int to = 0; to < width; to++) {
+                    dependencyAnalyzer.registerDependency(Dependency.Companion.fromArtifactVersions(
+                        layeredLibrary(layer, from), layeredLibrary(layer + 1, to)));
+                }
+            }
+        }
+        for (int i = 0; i < width; i++) {
+            dependencyAnalyzer.registerDependency(
+                Dependency.Companion.fromArtifactVersions(PROJECT, layeredLibrary(0, i)));
+        }
+
+        Collection<Node> paths =
+            dependencyAnalyzer.getPaths(layeredLibrary(layers - 1, 0).getArtifact());
+
+        Assert.assertEquals(width, paths.size());
+        Set<Artifact> directDependencies = new HashSet<>();
+        for (Node path : paths) {
+            Assert.assertEquals(PROJECT, path.getDependency().getFromArtifactVersion());
+            Assert.assertEquals(layers, pathLength(path));
+            directDependencies.add(path.getDependency().getToArtifact());
+        }
+        Assert.assertEquals(width, directDependencies.size());
+    }
+
+    @Test
+    public void testGetPaths_DependencyCycle_Terminates() {
+        DependencyAnalyzer dependencyAnalyzer = new DependencyAnalyzer();
+        dependencyAnalyzer.registerDependency(ART_A_100_TO_ART_B_100);
+        dependencyAnalyzer.registerDependency(
+            Dependency.Companion.fromArtifactVersions(ARTIFACT_B_100, ARTIFACT_A_100));
+        dependencyAnalyzer.registerDependency(ART_B_100_TO_ART_D_100);
+
+        Collection<Node> paths = dependencyAnalyzer.getPaths(ARTIFACT_D_100.getArtifact());
+
+        Assert.assertTrue("Nothing outside the cycle depends on D:\n" + paths, paths.isEmpty());
+    }
+
+    private static Map<Artifact, ArtifactVersion> resolve(ArtifactVersion... versions) {
+        Map<Artifact, ArtifactVersion> resolvedVersions = new HashMap<>();
+        for (ArtifactVersion version : versions) {
+            resolvedVersions.put(version.getArtifact(), version);
+        }
+        return resolvedVersions;
+    }
+
+    private static ArtifactVersion layeredLibrary(int layer, int index) {
+        return new ArtifactVersion("com.google.firebase", "layer" + layer + "-" + index, "1.0.0");
+    }
+
+    private static int pathLength(Node path) {
+        int length = 1;
+        for (Node n = path; n.getChild() != null; n = n.getChild()) {
+            length++;
+        }
+        return length;
+    }
+
+    private static Node lastNode(Node path) {
+        Node n = path;
+        while (n.getChild() != null) {
+            n = n.getChild();
+        }
+        return n;
+    }
 }